@@ -0,0 +1,1156 @@
+/*
+  A Java implementation of the Apriori Algorithm
+  Source dataSet should be in the following format:
+  1. Each line is considered as a transaction
+  2. Each item in transaction is separated by a space
+  3. Assume each transaction is sorted
+  4. Items are non-negative integers
+*/
+package datamining.apriori;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+public class Apriori {
+
+    /* Minimum support for frequent item set */
+    private int mThreshold;
+
+    /* The Frequent Item Set of Size 1 from constructor */
+    private List<int[]> oneDimensionFIS;
+
+    /* The support of each item, indexed by rank */
+    private int[] mItemSupport;
+
+    /* Receives the frequent item sets as each level is validated */
+    private ItemSetSink mSink;
+
+    /* The items of the set being reported */
+    private int[] mReported = new int[16];
+
+    /* Collects the measurements of generateFIS, null if not measured */
+    private RunMetrics mMetrics;
+
+    /* The measurements of the level being counted */
+    private RunMetrics.Level mLevel;
+
+    /* The database read from file, pruned in place as the item sets grow */
+    private TransactionStore mData;
+
+    /* Number of threads counting the support of candidates */
+    private int mThreads = 1;
+
+    /* The pool running the counting tasks while generateFIS runs with more than one thread */
+    private ForkJoinPool mPool;
+
+    /* Lines counted by a single task are never split further below this size */
+    private static final int MIN_LINES_PER_TASK = 1024;
+
+    /* Whether close cost estimates are settled by timing the strategies on a slice of the database */
+    private boolean mCalibrate;
+
+    /* Number of live transactions sampled to estimate the cost of each strategy */
+    private static final int SAMPLE_LINES = 4096;
+
+    /* Number of sampled transactions each strategy is timed on when calibrating */
+    private static final int CALIBRATION_LINES = 1024;
+
+    /* Strategies are only timed when the second cheapest estimate is within this factor of the cheapest */
+    private static final double CALIBRATION_RATIO = 4;
+
+    /* Estimated cost of looking up a subset in the candidate index, besides hashing and comparing its items */
+    private static final int LOOKUP_COST = 16;
+
+    /* Beyond this many candidates the index no longer fits in the cache and each lookup also costs a miss */
+    private static final int CACHED_CANDIDATES = 32768;
+    private static final int MISS_COST = 32;
+
+
+    /**
+     * Constructor for the class
+     * Also prepares frequent item set of size 1 and counts the number of transactions
+     * @param dataPath the path to the .dat file
+     * @param supportThreshold the threshold for support frequency
+     */
+    public Apriori(String dataPath, int supportThreshold){
+        this(loadDatabase(dataPath), supportThreshold);
+    }
+
+    /**
+     * Constructor for the class over transactions held by the caller
+     * Also prepares frequent item set of size 1 and counts the number of transactions
+     * @param transactions the transactions, each a set of non-negative items in any order; they are copied, so the
+     *                     caller may reuse them
+     * @param supportThreshold the threshold for support frequency
+     */
+    public Apriori(int[][] transactions, int supportThreshold){
+        this(toStore(transactions), supportThreshold);
+    }
+
+    /**
+     * Constructor for the class over a database already in memory
+     * Also prepares frequent item set of size 1 and counts the number of transactions
+     * @param data the database, encoded here and pruned in place by generateFIS
+     * @param supportThreshold the threshold for support frequency
+     */
+    Apriori(TransactionStore data, int supportThreshold){
+        mThreshold = supportThreshold;
+        mData = data;
+
+        // The miners work on the ranks of the items, which are only mapped back to the items when reported
+        mData.encode();
+
+        // Construct a list of one item sets from the supports counted by rank while encoding
+        mItemSupport = mData.supports();
+
+        oneDimensionFIS = new ArrayList<>();
+
+        for (int item = 0; item < mItemSupport.length; item++){
+            if (mItemSupport[item] > 0 && mItemSupport[item] >= mThreshold){
+                int[] temp = new int[1];
+                temp[0] = item;
+                oneDimensionFIS.add(temp);
+            }
+        }
+    }
+
+    /**
+     * Copy transactions into a transaction store, sorting the items of each and dropping repeated ones
+     * @param transactions the transactions
+     * @return the database
+     */
+    private static TransactionStore toStore(int[][] transactions){
+        TransactionStore data = new TransactionStore();
+        int[] buffer = new int[16];
+        for (int[] transaction : transactions){
+            if (transaction.length > buffer.length){
+                buffer = new int[Math.max(transaction.length, buffer.length * 2)];
+            }
+            System.arraycopy(transaction, 0, buffer, 0, transaction.length);
+            Arrays.sort(buffer, 0, transaction.length);
+            int length = 0;
+            for (int i = 0; i < transaction.length; i++){
+                if (buffer[i] < 0){
+                    throw new IllegalArgumentException("Items must be non-negative: " + buffer[i]);
+                }
+                if (length == 0 || buffer[length - 1] != buffer[i]){
+                    buffer[length++] = buffer[i];
+                }
+            }
+            data.add(buffer, length);
+        }
+        data.trim();
+        return data;
+    }
+
+    /**
+     * Read the .dat file into a transaction store
+     * @param dataPath the path to the .dat file
+     * @return the database, holding the transactions read so far if the file could not be read
+     */
+    private static TransactionStore loadDatabase(String dataPath){
+        TransactionStore data = new TransactionStore();
+        try {
+            new TransactionParser().parse(dataPath, data::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        data.trim();
+        return data;
+    }
+
+    /**
+     * Generates new candidate for frequent item set of size k based on the frequent item set of size k - 1
+     * by joining the sets sharing their first k - 2 items, which are contiguous once sorted,
+     * and selects those having all their subsets of size k - 1 frequent
+     * The sorted ordering of items in each set is maintained and the candidates are produced in lexicographic order
+     * @param lastCandidates the frequent item set of size k - 1, possibly empty
+     * @return the new list of candidates, empty if there is no set to join
+     */
+    static List<int[]> buildNewCandidates(List<int[]> lastCandidates){
+        return buildNewCandidates(lastCandidates, null);
+    }
+
+    /**
+     * Generates new candidate for frequent item set of size k, recording the candidates pruned by the subset check
+     * @param lastCandidates the frequent item sets of size k - 1
+     * @param level the measurements of the level, null if not measured
+     * @return the candidates of size k
+     */
+    private static List<int[]> buildNewCandidates(List<int[]> lastCandidates, RunMetrics.Level level){
+        if (lastCandidates.isEmpty()){
+            return new ArrayList<>();
+        }
+        List<int[]> sorted = new ArrayList<>(lastCandidates);
+        Collections.sort(sorted, CandidateTrie::compare);
+
+        int prefix = sorted.get(0).length - 1;
+        int size = prefix + 2;
+
+        // Index the frequent sets of size k - 1 for the subset check
+        ItemSetCounter frequent = new ItemSetCounter(size - 1, sorted.size());
+        for (int[] set : sorted){
+            frequent.add(set);
+        }
+
+        List<int[]> res = new ArrayList<>();
+        int[] subset = new int[size - 1];
+
+        int blockStart = 0;
+        while (blockStart < sorted.size()){
+            // Find the sets sharing the same first k - 2 items
+            int blockEnd = blockStart + 1;
+            while (blockEnd < sorted.size() && samePrefix(sorted.get(blockStart), sorted.get(blockEnd), prefix)){
+                blockEnd++;
+            }
+
+            for (int i = blockStart; i < blockEnd; i++){
+                for (int j = i + 1; j < blockEnd; j++){
+                    int[] candidate = Arrays.copyOf(sorted.get(i), size);
+                    candidate[size - 1] = sorted.get(j)[prefix];
+
+                    // Prune the candidates which does not have all subsets being frequent
+                    // The subsets dropping one of the last two items are the joined sets themselves
+                    if (allSubsetsFrequent(candidate, subset, frequent)){
+                        res.add(candidate);
+                    } else if (level != null){
+                        level.subsetPruned++;
+                    }
+                }
+            }
+            blockStart = blockEnd;
+        }
+
+        return res;
+    }
+
+    private static boolean samePrefix(int[] firstSet, int[] secondSet, int prefix){
+        for (int i = 0; i < prefix; i++){
+            if (firstSet[i] != secondSet[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check the subsets of size k - 1 of a candidate, except those dropping one of its last two items
+     * @param candidate the candidate of size k
+     * @param subset the buffer of size k - 1 to hold each subset
+     * @param frequent the frequent item sets of size k - 1
+     * @return true if all those subsets are frequent
+     */
+    private static boolean allSubsetsFrequent(int[] candidate, int[] subset, ItemSetCounter frequent){
+        for (int skip = 0; skip < candidate.length - 2; skip++){
+            for (int i = 0, j = 0; i < candidate.length; i++){
+                if (i != skip){
+                    subset[j++] = candidate[i];
+                }
+            }
+            if (frequent.indexOf(subset) < 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Enumerate every subset of size k of the transaction into {@code subset}
+     * and count those that are candidates
+     * @param transaction the array holding the transaction to be enumerated
+     * @param end the end of the transaction in {@code transaction}
+     * @param subset the buffer of size k holding the subset being built
+     * @param depth the number of items already chosen in the subset
+     * @param index the first position in transaction that can be chosen next
+     * @param frequency the counter holding all candidates
+     * @param counts the support counts, indexed as the entries of {@code frequency}
+     * @return true if at least one subset is a candidate
+     */
+    private static boolean countSubsets(int[] transaction, int end, int[] subset, int depth, int index,
+                                 ItemSetCounter frequency, int[] counts){
+        if (depth == subset.length){
+            int entry = frequency.indexOf(subset);
+            if (entry < 0){
+                return false;
+            }
+            counts[entry]++;
+            return true;
+        }
+        boolean found = false;
+        for (int i = index; i <= end - subset.length + depth; i++){
+            subset[depth] = transaction[i];
+            found |= countSubsets(transaction, end, subset, depth + 1, i + 1, frequency, counts);
+        }
+        return found;
+    }
+
+    /**
+     * Use the Brute Force Algorithm to count the frequency of each candidate
+     * Traverse the database to mark the items of each transaction
+     * Then traverse the candidate set to count their frequency
+     * This method has better performance than using List when the transactions are long
+     * @param candidates candidates to be validated
+     * @return A list of candidates met the min support count
+     */
+    private List<int[]> validateCandidatesWithSet(List<int[]> candidates) {
+        int[] frequency = countSupport(candidates.size(), setCounters(mData, candidates));
+
+        List<int[]> res = new ArrayList<>();
+        for (int j = 0; j < frequency.length; j++){
+            if (frequency[j] >= mThreshold){
+                res.add(candidates.get(j));
+
+                // Put the Set - frequency entry in result
+                registerItemSet(candidates.get(j), frequency[j]);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Use the subset generation method to count the frequency
+     * Generate subset of size k for each transaction and update the Map having all candidates as keys
+     * This method has better performance than using List when candidate set is long
+     * @param candidates candidates to be validated
+     * @param dict the items of the candidates, the others being removed from the transactions
+     * @return A list of candidates met the min support count
+     */
+    private List<int[]> validateCandidatesWithList(List<int[]> candidates, boolean[] dict){
+        ItemSetCounter frequency = indexCandidates(candidates);
+
+        int[] counts = countSupport(frequency.size(), listCounters(mData, frequency, dict));
+
+        List<int[]> res = new ArrayList<>();
+        for (int i = 0; i < frequency.size(); i++){
+            if (counts[i] >= mThreshold){
+                int[] set = frequency.get(i);
+                res.add(set);
+
+                // Put the Set - frequency entry in result
+                registerItemSet(set, counts[i]);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Use the candidate trie to count the frequency
+     * Each transaction is walked once against the prefix trie of all candidates
+     * This method has better performance than both others when the transactions are long and the candidate set is large
+     * @param candidates candidates to be validated
+     * @param dict the items of the candidates, the others being removed from the transactions
+     * @return A list of candidates met the min support count
+     */
+    private List<int[]> validateCandidatesWithTrie(List<int[]> candidates, boolean[] dict){
+        CandidateTrie trie = new CandidateTrie(candidates);
+
+        int[] counts = countSupport(trie.size(), trieCounters(mData, trie, dict));
+
+        List<int[]> res = new ArrayList<>();
+        for (int i = 0; i < trie.size(); i++){
+            if (counts[i] >= mThreshold){
+                res.add(trie.candidate(i));
+
+                // Put the Set - frequency entry in result
+                registerItemSet(trie.candidate(i), counts[i]);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Mark the items of each transaction, then check every candidate against the marks
+     * @param data the transactions to be counted
+     * @param candidates the candidates, counted in this order
+     * @return creates the counter of one thread
+     */
+    private static Supplier<LineCounter> setCounters(TransactionStore data, List<int[]> candidates){
+        return () -> {
+            boolean[] line = new boolean[data.maxItem() + 1];
+            return (i, counts) -> {
+                int[] items = data.items();
+                int from = data.offset(i);
+                int to = from + data.length(i);
+                for (int k = from; k < to; k++){
+                    line[items[k]] = true;
+                }
+
+                boolean empty = true;
+                for (int j = 0; j < counts.length; j++){
+                    // Check if candidate is subset
+                    boolean isSubset = true;
+                    for (int n : candidates.get(j)){
+                        if (n < 0 || n >= line.length || !line[n]){
+                            isSubset = false;
+                            break;
+                        }
+                    }
+                    if (isSubset){
+                        empty = false;
+                        counts[j]++;
+                    }
+                }
+
+                for (int k = from; k < to; k++){
+                    line[items[k]] = false;
+                }
+                return !empty;
+            };
+        };
+    }
+
+    /**
+     * Prune each transaction to the items of the candidates, then look up each of its subsets of size k
+     * @param data the transactions to be counted, pruned in place
+     * @param frequency the candidates, counted in the order of its entries
+     * @param dict the items of the candidates
+     * @return creates the counter of one thread
+     */
+    private static Supplier<LineCounter> listCounters(TransactionStore data, ItemSetCounter frequency,
+                                                      boolean[] dict){
+        int size = frequency.width();
+        return () -> {
+            int[] subset = new int[size];
+            return (i, local) -> {
+                if (data.retain(i, dict) < size){
+                    return false;
+                }
+
+                // Counts all subset of size k for this transaction
+                int from = data.offset(i);
+                return countSubsets(data.items(), from + data.length(i), subset, 0, from, frequency, local);
+            };
+        };
+    }
+
+    /**
+     * Prune each transaction to the items of the candidates, then walk it against the candidate trie
+     * @param data the transactions to be counted, pruned in place
+     * @param trie the candidates, counted in lexicographic order
+     * @param dict the items of the candidates
+     * @return creates the counter of one thread
+     */
+    private static Supplier<LineCounter> trieCounters(TransactionStore data, CandidateTrie trie, boolean[] dict){
+        int size = trie.candidate(0).length;
+        return () -> (i, local) -> {
+            if (data.retain(i, dict) < size){
+                return false;
+            }
+            int from = data.offset(i);
+            return trie.count(data.items(), from, from + data.length(i), local);
+        };
+    }
+
+    private static ItemSetCounter indexCandidates(List<int[]> candidates){
+        ItemSetCounter frequency = new ItemSetCounter(candidates.get(0).length, candidates.size());
+        for (int[] candidate : candidates){
+            frequency.add(candidate);
+        }
+        return frequency;
+    }
+
+    /**
+     * Count the support of the candidates over all lines not skipped yet
+     * The lines are partitioned among the threads, each counting into its own array, which are summed at the end
+     * The lines that did not contain any candidate are skipped by the thread counting them
+     * @param candidateNum the number of candidates
+     * @param counters creates the counter used by one thread, so it can hold its own buffers
+     * @return the support count of each candidate
+     */
+    private int[] countSupport(int candidateNum, Supplier<LineCounter> counters){
+        int grain = Math.max(MIN_LINES_PER_TASK, mData.size() / (mThreads * 4));
+        SupportCountTask task = new SupportCountTask(0, mData.size(), grain, candidateNum, counters);
+        return mPool == null ? task.compute() : mPool.invoke(task);
+    }
+
+    /**
+     * Collect all items appearing in the candidates
+     * @param candidates the candidates to be validated
+     * @return flags for the items still possibly frequent, indexed by rank
+     */
+    private boolean[] buildDictionary(List<int[]> candidates){
+        boolean[] dict = new boolean[mData.distinctItems()];
+        for (int[] list : candidates){
+            for (int num : list){
+                if (num >= 0 && num < dict.length){
+                    dict[num] = true;
+                }
+            }
+        }
+        return dict;
+    }
+
+    /**
+     * Estimate the cost of each counting strategy on the transactions still live and choose the cheapest one
+     * The cost is counted in items visited, from a sample of the live transactions spread over the whole database,
+     * the weights being measured on the test datasets (T10I4D100K at 500, mushroom at 1500 and chess at 2000):
+     * Set marks the items of each transaction and checks every candidate against them, stopping at its first
+     * item missing, the chance of an item being present being the share of the candidate items the transaction holds,
+     * List prunes each transaction to the items of the candidates and looks up each of its subsets of size k,
+     * Trie prunes each transaction the same way and merges it with the children of every node it reaches,
+     * at most min(C(length, d), nodes at depth d) of them on each depth d
+     * List and Trie also pay once for indexing the candidates
+     * When calibrating and the two cheapest estimates are close, both are timed on a slice of the sample instead
+     * Only the in-memory counting strategies are considered, the partitioned (SON) miner being far slower on a database
+     * already in memory
+     * @param candidates the candidates in lexicographic order
+     * @param dict the items of the candidates
+     * @param n the size of the candidates
+     * @return the strategy to be used
+     */
+    private Strategy chooseStrategy(List<int[]> candidates, boolean[] dict, int n){
+        int live = 0;
+        for (int line = 0; line < mData.size(); line++){
+            if (mData.length(line) > 0){
+                live++;
+            }
+        }
+        int[] sample = new int[Math.min(live, SAMPLE_LINES)];
+        int sampled = 0;
+        int stride = Math.max(1, live / SAMPLE_LINES);
+        for (int line = 0, seen = 0; line < mData.size() && sampled < sample.length; line++){
+            if (mData.length(line) > 0 && seen++ % stride == 0){
+                sample[sampled++] = line;
+            }
+        }
+        if (sampled == 0){
+            return Strategy.SET;
+        }
+
+        int dictItems = 0;
+        for (boolean flag : dict){
+            if (flag){
+                dictItems++;
+            }
+        }
+
+        // The number of distinct prefixes of each length, the nodes on each depth of the trie
+        int candidateNum = candidates.size();
+        double[] nodes = new double[n + 1];
+        nodes[0] = 1;
+        for (int i = 0; i < candidateNum; i++){
+            int shared = i == 0 ? 0 : sharedPrefix(candidates.get(i - 1), candidates.get(i));
+            for (int d = shared + 1; d <= n; d++){
+                nodes[d]++;
+            }
+        }
+
+        double lookup = 2 * n + LOOKUP_COST + (candidateNum > CACHED_CANDIDATES ? MISS_COST : 0);
+        double[] costs = new double[Strategy.values().length];
+        int[] items = mData.items();
+        double[] subsets = new double[n + 1];
+        for (int s = 0; s < sampled; s++){
+            int from = mData.offset(sample[s]);
+            int length = mData.length(sample[s]);
+            int kept = 0;
+            for (int i = from; i < from + length; i++){
+                if (items[i] < dict.length && dict[items[i]]){
+                    kept++;
+                }
+            }
+
+            // Expected number of items checked for each candidate
+            double present = (double) kept / dictItems;
+            double checked = 0;
+            for (int i = 0; i < n; i++){
+                checked += Math.pow(present, i);
+            }
+            costs[Strategy.SET.ordinal()] += 2.0 * length + 2.0 * candidateNum * checked;
+            costs[Strategy.LIST.ordinal()] += length;
+            costs[Strategy.TRIE.ordinal()] += length;
+            if (kept < n){
+                continue;
+            }
+
+            // subsets[d] = C(kept, d)
+            subsets[0] = 1;
+            for (int d = 1; d <= n; d++){
+                subsets[d] = subsets[d - 1] * (kept - d + 1) / d;
+            }
+            costs[Strategy.LIST.ordinal()] += subsets[n] * lookup;
+            for (int d = 0; d < n; d++){
+                costs[Strategy.TRIE.ordinal()] += Math.min(subsets[d], nodes[d])
+                        * (kept - d + nodes[d + 1] / nodes[d]);
+            }
+        }
+
+        double scale = (double) live / sampled;
+        for (int i = 0; i < costs.length; i++){
+            costs[i] *= scale;
+        }
+        costs[Strategy.LIST.ordinal()] += candidateNum * lookup;
+        costs[Strategy.TRIE.ordinal()] += (double) candidateNum * n * (1 + Math.log(candidateNum) / Math.log(2));
+
+        Strategy best = Strategy.SET;
+        Strategy second = null;
+        for (Strategy strategy : Strategy.values()){
+            if (strategy == best){
+                continue;
+            }
+            if (costs[strategy.ordinal()] < costs[best.ordinal()]){
+                second = best;
+                best = strategy;
+            } else if (second == null || costs[strategy.ordinal()] < costs[second.ordinal()]){
+                second = strategy;
+            }
+        }
+
+        if (mCalibrate && live >= CALIBRATION_LINES * 4
+                && costs[second.ordinal()] < costs[best.ordinal()] * CALIBRATION_RATIO){
+            best = calibrate(candidates, dict, sample, sampled, live, best, second);
+        }
+        return best;
+    }
+
+    private static int sharedPrefix(int[] first, int[] second){
+        int i = 0;
+        while (i < first.length && first[i] == second[i]){
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Time two strategies on a slice of the sampled transactions and choose the one extrapolating faster
+     * Each strategy runs twice on its own copy of the slice, since List and Trie prune the transactions they count,
+     * and the faster run is kept so that the first one can warm up the code
+     * @return the strategy to be used
+     */
+    private Strategy calibrate(List<int[]> candidates, boolean[] dict, int[] sample, int sampled, int live,
+                               Strategy first, Strategy second){
+        int sliceLines = Math.min(sampled, CALIBRATION_LINES);
+        int stride = sampled / sliceLines;
+        int[] slice = new int[sliceLines];
+        for (int i = 0; i < sliceLines; i++){
+            slice[i] = sample[i * stride];
+        }
+
+        double firstCost = Double.MAX_VALUE;
+        double secondCost = Double.MAX_VALUE;
+        for (int run = 0; run < 2; run++){
+            firstCost = Math.min(firstCost, timeStrategy(first, candidates, dict, slice, live));
+            secondCost = Math.min(secondCost, timeStrategy(second, candidates, dict, slice, live));
+        }
+        return firstCost <= secondCost ? first : second;
+    }
+
+    /**
+     * @return the time in nanoseconds a strategy would take on all live lines, from its time on the given lines
+     */
+    private double timeStrategy(Strategy strategy, List<int[]> candidates, boolean[] dict, int[] lines, int live){
+        TransactionStore slice = new TransactionStore();
+        for (int line : lines){
+            int from = mData.offset(line);
+            slice.add(Arrays.copyOfRange(mData.items(), from, from + mData.length(line)), mData.length(line));
+        }
+
+        long start = System.nanoTime();
+        Supplier<LineCounter> counters;
+        switch (strategy){
+            case LIST:
+                counters = listCounters(slice, indexCandidates(candidates), dict);
+                break;
+            case TRIE:
+                counters = trieCounters(slice, new CandidateTrie(candidates), dict);
+                break;
+            default:
+                counters = setCounters(slice, candidates);
+        }
+        long built = System.nanoTime();
+
+        LineCounter counter = counters.get();
+        int[] counts = new int[candidates.size()];
+        for (int i = 0; i < slice.size(); i++){
+            if (!counter.count(i, counts)){
+                slice.skip(i);
+            }
+        }
+        long counted = System.nanoTime();
+        return (built - start) + (double) (counted - built) * live / lines.length;
+    }
+
+    /**
+     * Run the Apriori algorithm to compute the frequent item set
+     * Nothing is reported when no item reaches the threshold, including on an empty database
+     */
+    public void generateFIS(){
+        if (mThreads > 1){
+            mPool = new ForkJoinPool(mThreads);
+        }
+        try {
+            registerOneDimensionFIS();
+            if (mMetrics != null){
+                int distinct = 0;
+                for (int support : mItemSupport){
+                    if (support > 0){
+                        distinct++;
+                    }
+                }
+                mMetrics.setDatabase(mData.size(), distinct, mData.itemCount());
+            }
+            if (oneDimensionFIS.isEmpty()){
+                return;
+            }
+            List<int[]> lastFIS = oneDimensionFIS;
+            int n = 2;
+            while (true){
+                long start = System.nanoTime();
+                mLevel = mMetrics == null ? null : mMetrics.newLevel(n);
+
+                List<int[]> candidates = buildNewCandidates(lastFIS, mLevel);
+
+                long generated = System.nanoTime();
+                if (mLevel != null){
+                    mLevel.candidates = candidates.size();
+                    mLevel.generationNanos = generated - start;
+                }
+                if (candidates.size() == 0){
+                    break;
+                }
+                List<int[]> FIS;
+
+                // Filtering the database using the items appeared frequent in FIS of size k - 1
+                boolean[] dict = buildDictionary(candidates);
+                Strategy strategy = chooseStrategy(candidates, dict, n);
+                long chosen = System.nanoTime();
+                switch (strategy){
+                    case LIST:
+                        FIS = validateCandidatesWithList(candidates, dict);
+                        break;
+                    case TRIE:
+                        FIS = validateCandidatesWithTrie(candidates, dict);
+                        break;
+                    default:
+                        FIS = validateCandidatesWithSet(candidates);
+                }
+                if (mLevel != null){
+                    mLevel.frequent = FIS.size();
+                    mLevel.strategy = strategy.name();
+                    mLevel.selectionNanos = chosen - generated;
+                    mLevel.validationNanos = System.nanoTime() - chosen;
+                    mLevel.heapUsed = RunMetrics.usedHeap();
+                }
+                if (FIS.size() == 0){
+                    break;
+                }
+                lastFIS = FIS;
+                n++;
+            }
+        } finally {
+            mLevel = null;
+            if (mPool != null){
+                mPool.shutdown();
+                mPool = null;
+            }
+        }
+    }
+
+    /**
+     * Compute the same frequent item sets as generateFIS with the vertical (Eclat) miner
+     * The database is converted to one transaction id bitset per frequent item and supports are counted
+     * by intersecting them, which avoids rescanning the database on every level for dense databases
+     */
+    public void generateFISVertical(){
+        registerOneDimensionFIS();
+        Eclat eclat = new Eclat(mData, frequentItems(), mThreshold);
+        eclat.generateFIS(this::reportItemSet);
+    }
+
+    /**
+     * Compute only the closed frequent item sets, those without a superset of the same support
+     * The support of every frequent item set can be reconstructed from them with ClosedItemSets
+     */
+    public void generateClosedFIS(){
+        ClosedMiner closed = new ClosedMiner(mData, frequentItems(), mThreshold);
+        closed.generateFIS(this::reportItemSet);
+    }
+
+    /**
+     * Compute only the maximal frequent item sets, those without a frequent superset
+     */
+    public void generateMaximalFIS(){
+        MaximalMiner maximal = new MaximalMiner(mData, frequentItems(), mThreshold);
+        maximal.generateFIS(this::reportItemSet);
+    }
+
+    /**
+     * Compute the K most frequent item sets of size 2 or more, the support threshold only being a lower bound
+     * The threshold is raised to the support of the K-th best set found so far as the search goes
+     * @param k the number of item sets wanted, at least 1, all sets tied with the K-th best are included
+     * @return the support of the K-th best set
+     */
+    public int generateTopKFIS(int k){
+        TopKMiner topK = new TopKMiner(mData, frequentItems(), mThreshold, k);
+        return topK.generateFIS(this::reportItemSet);
+    }
+
+    private List<Integer> frequentItems(){
+        List<Integer> items = new ArrayList<>();
+        for (int[] set : oneDimensionFIS){
+            items.add(set[0]);
+        }
+        return items;
+    }
+
+    /**
+     * Settle close cost estimates between counting strategies by timing them on a slice of the database
+     * The frequent item sets and their counts do not depend on the strategies chosen
+     * @param calibrate true to time the strategies whose estimates are close
+     */
+    public void setCalibration(boolean calibrate){
+        mCalibrate = calibrate;
+    }
+
+    /**
+     * Set the number of threads counting the support of candidates
+     * The frequent item sets and their counts do not depend on the number of threads
+     * @param threads the number of threads, 1 to count in the calling thread
+     */
+    public void setThreads(int threads){
+        mThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Put the Set - frequency entry of a frequent item set in result
+     * @param set the frequent item set
+     * @param frequency the support count of the set
+     */
+    private void registerItemSet(int[] set, int frequency){
+        reportItemSet(set, set.length, frequency);
+    }
+
+    /**
+     * Pass an item set found by one of the miners to the sink, its ranks mapped back to the items
+     */
+    private void reportItemSet(int[] items, int length, int support){
+        if (mSink != null){
+            if (mReported.length < length){
+                mReported = new int[Math.max(length, mReported.length * 2)];
+            }
+            for (int i = 0; i < length; i++){
+                mReported[i] = mData.item(items[i]);
+            }
+            mSink.add(mReported, length, support);
+        }
+    }
+
+    private void registerOneDimensionFIS(){
+        for (int[] set : oneDimensionFIS){
+            registerItemSet(set, mItemSupport[set[0]]);
+        }
+    }
+
+    /**
+     * Send the frequent item sets to a sink as they are found, nothing is kept in memory
+     * @param sink receives every frequent item set, including those of size 1
+     */
+    public void setItemSetSink(ItemSetSink sink){
+        mSink = sink;
+    }
+
+    /**
+     * Record the measurements of each level of generateFIS
+     * @param metrics receives the measurements, null to stop measuring
+     */
+    public void setMetrics(RunMetrics metrics){
+        mMetrics = metrics;
+    }
+
+    /**
+     * Counts the candidates contained in a single line into the given array
+     */
+    private interface LineCounter {
+        /**
+         * @param line the index of the transaction
+         * @param counts the support counts to be incremented
+         * @return false if the line did not contain any candidate and can be skipped from now on
+         */
+        boolean count(int line, int[] counts);
+    }
+
+    /**
+     * Counts the support of candidates over a range of lines, splitting the range in halves until it is small enough
+     * Each leaf counts into its own array, the results are summed while joining
+     */
+    private class SupportCountTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final int candidateNum;
+        private final Supplier<LineCounter> counters;
+
+        SupportCountTask(int from, int to, int grain, int candidateNum, Supplier<LineCounter> counters){
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.candidateNum = candidateNum;
+            this.counters = counters;
+        }
+
+        @Override
+        protected int[] compute(){
+            if (to - from > grain){
+                int middle = (from + to) >>> 1;
+                SupportCountTask left = new SupportCountTask(from, middle, grain, candidateNum, counters);
+                SupportCountTask right = new SupportCountTask(middle, to, grain, candidateNum, counters);
+                left.fork();
+                int[] second = right.compute();
+                int[] first = left.join();
+
+                for (int i = 0; i < candidateNum; i++){
+                    first[i] += second[i];
+                }
+                return first;
+            }
+
+            LineCounter counter = counters.get();
+            int[] counts = new int[candidateNum];
+            int scanned = 0;
+            int skipped = 0;
+            for (int i = from; i < to; i++){
+                if (mData.length(i) == 0){
+                    continue;
+                }
+                scanned++;
+                if (!counter.count(i, counts)){
+                    mData.skip(i);
+                    skipped++;
+                }
+            }
+            if (mLevel != null){
+                mLevel.scannedTransactions.addAndGet(scanned);
+                mLevel.skippedTransactions.addAndGet(skipped);
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * The algorithms available to count the support of candidates
+     */
+    private enum Strategy {
+        SET, LIST, TRIE
+    }
+
+    /**
+     * Count the transactions of a .dat file
+     */
+    private static long countTransactions(String dataPath) throws IOException {
+        long[] lines = {0};
+        new TransactionParser().parse(dataPath, (line, length) -> lines[0]++);
+        return lines[0];
+    }
+
+    /**
+     * Main function to be executed
+     * @param args 1st argument as the path to data file
+     *             2nd argument as the support frequency thershold
+     *             3rd argument as the path to output file
+     *             optionally followed by --threads [number of threads counting the support]
+     *             and --algorithm [apriori | eclat | fpgrowth | disk | son | closed | maximal | incremental | topk]
+     *             and --spill-dir [directory of the spill files of the disk algorithm]
+     *             and --partitions [number of partitions of the son algorithm]
+     *             and --k [number of item sets of the topk algorithm, the support threshold being a lower bound]
+     *             and --state [path to the state file of the incremental algorithm]
+     *             and --format [text | binary] of the output
+     *             and --rules [path to the association rules output], --min-confidence [0 to 1] and --min-lift [ratio]
+     *             and --report [path to the JSON report of the run]
+     *             and --verify to check that the closed item sets give back the support of every frequent item set
+     *             and --calibrate to time the counting strategies of apriori when their estimated costs are close
+     */
+    public static void main(String[] args){
+        if (args.length < 3){
+            System.out.println("Please specify data path, support frequency and output path");
+            return;
+        }
+        int supportThreshold = Integer.parseInt(args[1]);
+        int threads = 1;
+        String algorithm = "apriori";
+        File spillDirectory = null;
+        int partitions = 4;
+        boolean binary = false;
+        boolean verify = false;
+        boolean calibrate = false;
+        String rulesPath = null;
+        double minConfidence = 0.5;
+        double minLift = 0;
+        String statePath = null;
+        int k = 100;
+        String reportPath = null;
+        for (int i = 3; i < args.length; i++){
+            if (args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--algorithm") && i + 1 < args.length){
+                algorithm = args[++i];
+            } else if (args[i].equals("--spill-dir") && i + 1 < args.length){
+                spillDirectory = new File(args[++i]);
+            } else if (args[i].equals("--partitions") && i + 1 < args.length){
+                partitions = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--format") && i + 1 < args.length){
+                binary = args[++i].equals("binary");
+            } else if (args[i].equals("--k") && i + 1 < args.length){
+                k = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--state") && i + 1 < args.length){
+                statePath = args[++i];
+            } else if (args[i].equals("--rules") && i + 1 < args.length){
+                rulesPath = args[++i];
+            } else if (args[i].equals("--min-confidence") && i + 1 < args.length){
+                minConfidence = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--min-lift") && i + 1 < args.length){
+                minLift = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--report") && i + 1 < args.length){
+                reportPath = args[++i];
+            } else if (args[i].equals("--verify")){
+                verify = true;
+            } else if (args[i].equals("--calibrate")){
+                calibrate = true;
+            } else{
+                System.out.println("Unknown argument: " + args[i]);
+                return;
+            }
+        }
+        if (!Arrays.asList("apriori", "eclat", "disk", "son", "fpgrowth", "closed", "maximal", "incremental", "topk").contains(algorithm)){
+            System.out.println("Unknown algorithm: " + algorithm);
+            return;
+        }
+        if (k < 1){
+            System.out.println("Please specify at least 1 item set with --k");
+            return;
+        }
+        if (algorithm.equals("incremental") && statePath == null){
+            System.out.println("Please specify the state file of the incremental algorithm with --state");
+            return;
+        }
+        if (rulesPath != null && (algorithm.equals("closed") || algorithm.equals("maximal")
+                || algorithm.equals("topk"))){
+            System.out.println("Rules need every frequent item set, use another algorithm");
+            return;
+        }
+        long startTime = System.nanoTime();
+        ClosedItemSets closedSets = new ClosedItemSets();
+        RunMetrics metrics = reportPath == null ? null : new RunMetrics();
+        if (metrics != null){
+            metrics.start(algorithm, args[0], supportThreshold, threads);
+        }
+
+        // Every miner streams its item sets to the output as they are found
+        try (ItemSetWriter writer = ItemSetWriter.open(args[2], binary)){
+            ItemSetSink output = writer;
+            RuleGenerator rules = null;
+            if (rulesPath != null){
+                rules = new RuleGenerator(countTransactions(args[0]), minConfidence, minLift);
+                rules.setThreads(threads);
+                RuleGenerator generator = rules;
+                output = (items, length, support) -> {
+                    writer.add(items, length, support);
+                    generator.add(items, length, support);
+                };
+            }
+            if (metrics != null){
+                output = metrics.counting(output);
+            }
+
+            switch (algorithm){
+                case "apriori":
+                    Apriori apriori = new Apriori(args[0], supportThreshold);
+                    apriori.setThreads(threads);
+                    apriori.setCalibration(calibrate);
+                    apriori.setItemSetSink(output);
+                    apriori.setMetrics(metrics);
+
+                    apriori.generateFIS();
+                    break;
+                case "eclat":
+                    Apriori vertical = new Apriori(args[0], supportThreshold);
+                    vertical.setItemSetSink(output);
+
+                    vertical.generateFISVertical();
+                    break;
+                case "disk":
+                    new DiskApriori(args[0], supportThreshold, spillDirectory).generateFIS(output);
+                    break;
+                case "closed":
+                    Apriori closed = new Apriori(args[0], supportThreshold);
+                    ItemSetSink closedOutput = output;
+                    closed.setItemSetSink(!verify ? output : (items, length, support) -> {
+                        closedOutput.add(items, length, support);
+                        closedSets.add(items, length, support);
+                    });
+
+                    closed.generateClosedFIS();
+                    break;
+                case "maximal":
+                    Apriori maximal = new Apriori(args[0], supportThreshold);
+                    maximal.setItemSetSink(output);
+
+                    maximal.generateMaximalFIS();
+                    break;
+                case "topk":
+                    Apriori topK = new Apriori(args[0], supportThreshold);
+                    topK.setItemSetSink(output);
+
+                    System.out.println("Support threshold: " + topK.generateTopKFIS(k));
+                    break;
+                case "incremental":
+                    IncrementalApriori incremental = new IncrementalApriori(args[0], supportThreshold, statePath);
+                    try {
+                        incremental.generateFIS(output);
+                    } catch (IllegalArgumentException e){
+                        System.out.println(e.getMessage());
+                        return;
+                    }
+                    System.out.println("Support threshold: " + incremental.getThreshold());
+                    break;
+                case "son":
+                    if (PartitionApriori.fitsInMemory(args[0])){
+                        System.out.println("Warning: the database fits in memory, where the apriori algorithm"
+                                + " mines it much faster than son");
+                    }
+                    PartitionApriori partitioned = new PartitionApriori(args[0], supportThreshold, partitions);
+                    partitioned.setThreads(threads);
+                    partitioned.generateFIS(output);
+                    break;
+                default:
+                    new FPGrowth(args[0], supportThreshold).generateFIS(output);
+            }
+
+            if (rules != null){
+                try (BufferedWriter rulesOutput = new BufferedWriter(new FileWriter(rulesPath, false))){
+                    System.out.println("Rules: " + rules.generateRules(rulesOutput));
+                }
+            }
+        } catch (IOException | UncheckedIOException e){
+            e.printStackTrace();
+        }
+        long endTime = System.nanoTime();
+        long duration = (endTime - startTime);
+
+        System.out.println("Run Time: " + duration / 1000000000.0);
+
+        if (metrics != null){
+            metrics.stop();
+            try (BufferedWriter report = new BufferedWriter(new FileWriter(reportPath, false))){
+                metrics.writeJson(report);
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+
+        if (verify && algorithm.equals("closed")){
+            // Mine every frequent item set again and compare its support with the reconstructed one
+            long[] mismatches = {0};
+            long checked = new FPGrowth(args[0], supportThreshold).generateFIS(closedSets.verifier(mismatches));
+            System.out.println("Verified " + checked + " frequent item sets against " + closedSets.size()
+                    + " closed item sets: " + mismatches[0] + " mismatches");
+        }
+    }
+}
+
@@ -0,0 +1,128 @@
+package datamining.apriori;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the item sets in a compact binary format, much smaller and faster to load than the text format
+ * The file starts with the 4 bytes "FIS" and the format version, followed by one record per set:
+ * the number of items, the support, the first item and then the difference between each item and the
+ * previous one, all as varints (7 bits per byte, the high bit set on every byte but the last)
+ * Since the items are in ascending order the differences are small, and most take a single byte
+ */
+public class BinaryItemSetWriter implements ItemSetWriter {
+
+    static final byte[] MAGIC = {'F', 'I', 'S', 1};
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel mChannel;
+    private ByteBuffer mBuffer;
+
+    /**
+     * @param path the path to the output file, replaced if it exists
+     * @throws IOException if the file cannot be created
+     */
+    public BinaryItemSetWriter(String path) throws IOException {
+        mChannel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        mBuffer.put(MAGIC);
+    }
+
+    @Override
+    public void add(int[] items, int length, int support){
+        try {
+            // A varint takes at most 5 bytes
+            if (mBuffer.remaining() < 5 * (length + 2)){
+                flush();
+                if (mBuffer.capacity() < 5 * (length + 2)){
+                    mBuffer = ByteBuffer.allocateDirect(5 * (length + 2));
+                }
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        writeVarint(length);
+        writeVarint(support);
+        int previous = 0;
+        for (int i = 0; i < length; i++){
+            writeVarint(items[i] - previous);
+            previous = items[i];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mChannel.close();
+        }
+    }
+
+    /**
+     * Read back a file written by this class
+     * @param path the path to the binary file
+     * @param sink receives each item set in the order they were written
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    public static void read(String path, ItemSetSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (byte b : MAGIC){
+                if (!buffer.hasRemaining() || buffer.get() != b){
+                    throw new IOException("Not a binary item set file: " + path);
+                }
+            }
+            int[] items = new int[64];
+            while (buffer.hasRemaining()){
+                int length = readVarint(buffer);
+                int support = readVarint(buffer);
+                if (length > items.length){
+                    items = new int[Math.max(length, items.length * 2)];
+                }
+                int previous = 0;
+                for (int i = 0; i < length; i++){
+                    previous += readVarint(buffer);
+                    items[i] = previous;
+                }
+                sink.add(items, length, support);
+            }
+        } catch (BufferUnderflowException e){
+            throw new EOFException("Truncated binary item set file: " + path);
+        }
+    }
+
+    private static int readVarint(ByteBuffer buffer){
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private void writeVarint(int value){
+        while ((value & ~0x7F) != 0){
+            mBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        mBuffer.put((byte) value);
+    }
+
+    private void flush() throws IOException {
+        mBuffer.flip();
+        while (mBuffer.hasRemaining()){
+            mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package datamining.apriori;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A prefix trie holding all candidates of size k, used to count their support
+ * Each transaction is walked once against the trie: a branch is only followed while the transaction
+ * still contains its item, so neither every k-subset of the transaction nor every candidate is visited
+ * The nodes are stored level by level in flat arrays, the children of node j on level d being the nodes
+ * [childStart[d][j], childStart[d][j + 1]) on level d + 1, sorted by item
+ * The trie is not modified while counting, so several threads can count into their own arrays at once
+ */
+class CandidateTrie {
+
+    /* The size of the candidates */
+    private final int depth;
+
+    /* The candidates in lexicographic order, the leaf j on the last level is candidates.get(j) */
+    private final List<int[]> candidates;
+
+    /* The item of each node, per level */
+    private final int[][] levelItems;
+
+    /* The start of the children of each node on the next level, per level (one extra slot as end marker) */
+    private final int[][] childStart;
+
+    /**
+     * Build the trie of the candidates
+     * @param candidates the candidates, each sorted and of the same size
+     */
+    CandidateTrie(List<int[]> candidates){
+        this.candidates = new ArrayList<>(candidates);
+        Collections.sort(this.candidates, CandidateTrie::compare);
+        depth = this.candidates.get(0).length;
+        levelItems = new int[depth][];
+        childStart = new int[depth - 1][];
+
+        // Since the candidates are sorted, nodes sharing a prefix are contiguous
+        int[] parentOf = new int[this.candidates.size()];
+        int[] nodeOf = new int[this.candidates.size()];
+        for (int level = 0; level < depth; level++){
+            int[] items = new int[this.candidates.size()];
+            int[] parentStart = level > 0 ? new int[levelItems[level - 1].length + 1] : null;
+            int nodes = 0;
+            for (int c = 0; c < this.candidates.size(); c++){
+                int[] candidate = this.candidates.get(c);
+                boolean newParent = c == 0 || parentOf[c] != parentOf[c - 1];
+                if (newParent || candidate[level] != this.candidates.get(c - 1)[level]){
+                    if (newParent && parentStart != null){
+                        // The first child of a parent marks the start of its range
+                        parentStart[parentOf[c]] = nodes;
+                    }
+                    items[nodes++] = candidate[level];
+                }
+                nodeOf[c] = nodes - 1;
+            }
+            if (parentStart != null){
+                parentStart[parentStart.length - 1] = nodes;
+                childStart[level - 1] = parentStart;
+            }
+            levelItems[level] = Arrays.copyOf(items, nodes);
+
+            int[] swap = parentOf;
+            parentOf = nodeOf;
+            nodeOf = swap;
+        }
+    }
+
+    /**
+     * Count every candidate contained in the transaction
+     * @param transaction the array holding the sorted transaction
+     * @param from the start of the transaction in {@code transaction}
+     * @param to the end of the transaction in {@code transaction}
+     * @param counts the support counts indexed as the candidates in lexicographic order
+     * @return true if at least one candidate is contained in the transaction
+     */
+    boolean count(int[] transaction, int from, int to, int[] counts){
+        if (to - from < depth){
+            return false;
+        }
+        return walk(transaction, to, from, 0, 0, levelItems[0].length, counts);
+    }
+
+    private boolean walk(int[] transaction, int end, int from, int level, int low, int high, int[] counts){
+        int[] items = levelItems[level];
+
+        // The remaining positions must leave room for the deeper levels
+        int last = end - depth + level;
+        boolean found = false;
+
+        // Intersect the sorted transaction suffix with the sorted children
+        int i = from;
+        int j = low;
+        while (i <= last && j < high){
+            if (transaction[i] < items[j]){
+                i++;
+            } else if (transaction[i] > items[j]){
+                j++;
+            } else{
+                if (level == depth - 1){
+                    counts[j]++;
+                    found = true;
+                } else{
+                    found |= walk(transaction, end, i + 1, level + 1,
+                            childStart[level][j], childStart[level][j + 1], counts);
+                }
+                i++;
+                j++;
+            }
+        }
+        return found;
+    }
+
+    int size(){
+        return candidates.size();
+    }
+
+    /**
+     * @param index the index of the candidate in lexicographic order
+     * @return the candidate
+     */
+    int[] candidate(int index){
+        return candidates.get(index);
+    }
+
+    /**
+     * Lexicographic comparison of two sorted item sets of the same size
+     */
+    static int compare(int[] first, int[] second){
+        for (int i = 0; i < first.length; i++){
+            if (first[i] != second[i]){
+                return first[i] < second[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,115 @@
+package datamining.apriori;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The closed frequent item sets, from which the support of every frequent item set is reconstructed:
+ * it is the largest support of the closed sets containing it, and a set without closed superset is not frequent
+ * The closed sets containing a set are found by intersecting, for each of its items, the bitset of the closed sets
+ * holding that item
+ */
+public class ClosedItemSets implements ItemSetSink {
+
+    /* The closed sets and their support, in the order they were added */
+    private final List<int[]> mSets = new ArrayList<>();
+    private int[] mSupports = new int[256];
+
+    /* The items of the closed sets in ascending order, and for each the bitset of the closed sets holding it,
+       built on the first query */
+    private int[] mItems;
+    private long[][] mSetsOfItem;
+
+    @Override
+    public void add(int[] items, int length, int support){
+        if (mSets.size() == mSupports.length){
+            mSupports = Arrays.copyOf(mSupports, mSupports.length * 2);
+        }
+        mSupports[mSets.size()] = support;
+        mSets.add(Arrays.copyOf(items, length));
+        mSetsOfItem = null;
+    }
+
+    public int size(){
+        return mSets.size();
+    }
+
+    /**
+     * Reconstruct the support of an item set
+     * @param items the items of the set
+     * @param length the number of items at the start of {@code items}
+     * @return the support of the set, 0 if it is not frequent
+     */
+    public int support(int[] items, int length){
+        if (mSetsOfItem == null){
+            index();
+        }
+        int words = (mSets.size() + 63) >>> 6;
+        long[] closed = null;
+        for (int i = 0; i < length; i++){
+            int index = Arrays.binarySearch(mItems, items[i]);
+            if (index < 0){
+                return 0;
+            }
+            if (closed == null){
+                closed = mSetsOfItem[index].clone();
+            } else{
+                for (int w = 0; w < words; w++){
+                    closed[w] &= mSetsOfItem[index][w];
+                }
+            }
+        }
+
+        int support = 0;
+        for (int w = 0; closed != null && w < words; w++){
+            for (long word = closed[w]; word != 0; word &= word - 1){
+                support = Math.max(support, mSupports[(w << 6) + Long.numberOfTrailingZeros(word)]);
+            }
+        }
+        return support;
+    }
+
+    /**
+     * Check that every item set reported to the returned sink has the support reconstructed from the closed sets
+     * @param mismatches receives the number of item sets whose support differs, in its first slot
+     * @return the sink receiving the frequent item sets to be checked
+     */
+    public ItemSetSink verifier(long[] mismatches){
+        return (items, length, support) -> {
+            if (support(items, length) != support){
+                mismatches[0]++;
+            }
+        };
+    }
+
+    private void index(){
+        // Only the items present are indexed, so large items cost nothing
+        int total = 0;
+        for (int[] set : mSets){
+            total += set.length;
+        }
+        int[] items = new int[total];
+        int next = 0;
+        for (int[] set : mSets){
+            System.arraycopy(set, 0, items, next, set.length);
+            next += set.length;
+        }
+        Arrays.sort(items);
+        int distinct = 0;
+        for (int i = 0; i < items.length; i++){
+            if (distinct == 0 || items[distinct - 1] != items[i]){
+                items[distinct++] = items[i];
+            }
+        }
+        mItems = Arrays.copyOf(items, distinct);
+
+        int words = (mSets.size() + 63) >>> 6;
+        mSetsOfItem = new long[distinct][words];
+        for (int i = 0; i < mSets.size(); i++){
+            for (int item : mSets.get(i)){
+                mSetsOfItem[Arrays.binarySearch(mItems, item)][i >>> 6] |= 1L << i;
+            }
+        }
+    }
+}
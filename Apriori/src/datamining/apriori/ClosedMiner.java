@@ -0,0 +1,177 @@
+package datamining.apriori;
+
+import java.util.*;
+
+/**
+ * A closed frequent item set miner (CHARM) working on the transaction id bitsets of Eclat
+ * An item set is closed when no superset has the same support; the closed sets are much fewer than the
+ * frequent sets on dense data, and the support of any frequent set is the largest support of its closed supersets
+ * Sets are extended depth first; when extending X by Y keeps the transactions of X, Y is merged into X
+ * instead of being branched on, which prunes whole subtrees of non closed sets
+ */
+class ClosedMiner {
+
+    /* Minimum support for frequent item set */
+    private final int mThreshold;
+
+    /* The frequent items in ascending order and their bitsets */
+    private final int[] mItems;
+    private final TidSet[] mTidSets;
+
+    /* The closed sets found so far, by hash of their transactions */
+    private final Map<Integer, List<int[]>> mClosed = new HashMap<>();
+
+    /**
+     * Build the bitset of every frequent item
+     * @param transactions the encoded database, the sets being reported as ranks
+     * @param frequentItems the ranks of the items having at least {@code threshold} support
+     * @param threshold the threshold for support frequency
+     */
+    ClosedMiner(TransactionStore transactions, List<Integer> frequentItems, int threshold){
+        mThreshold = threshold;
+
+        mItems = new int[frequentItems.size()];
+        for (int i = 0; i < mItems.length; i++){
+            mItems[i] = frequentItems.get(i);
+        }
+        Arrays.sort(mItems);
+        mTidSets = TidSet.forItems(transactions, mItems);
+    }
+
+    /**
+     * Mine every closed frequent item set, including those of size 1
+     * @param sink receives the item sets as they are found
+     */
+    void generateFIS(ItemSetSink sink){
+        mClosed.clear();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < mItems.length; i++){
+            nodes.add(new Node(new int[]{mItems[i]}, mTidSets[i]));
+        }
+        extend(new int[0], nodes, sink);
+    }
+
+    /**
+     * Extend each node by its later siblings, merging the siblings occurring in every transaction of the node
+     * @param prefix the items shared by all nodes
+     * @param nodes the items added to the prefix by each node, with the transactions containing them and the prefix
+     * @param sink receives the item sets as they are found
+     */
+    private void extend(int[] prefix, List<Node> nodes, ItemSetSink sink){
+        // Less frequent nodes first, so that more siblings are merged into them
+        nodes.sort((a, b) -> a.tids.support - b.tids.support);
+        boolean[] removed = new boolean[nodes.size()];
+
+        for (int i = 0; i < nodes.size(); i++){
+            if (removed[i]){
+                continue;
+            }
+            Node node = nodes.get(i);
+            int[] items = node.items;
+            List<Node> children = new ArrayList<>();
+
+            for (int j = i + 1; j < nodes.size(); j++){
+                if (removed[j]){
+                    continue;
+                }
+                Node sibling = nodes.get(j);
+                TidSet tids = node.tids.and(sibling.tids, mThreshold);
+                if (tids == null){
+                    continue;
+                }
+                boolean coversNode = tids.support == node.tids.support;
+                boolean coversSibling = tids.support == sibling.tids.support;
+                if (coversSibling){
+                    // The sibling only occurs with the node, its own branch holds no new closed set
+                    removed[j] = true;
+                }
+                if (coversNode){
+                    // The sibling occurs in every transaction of the node, so it belongs to all of its closed sets
+                    items = union(items, sibling.items);
+                } else{
+                    children.add(new Node(sibling.items, tids));
+                }
+            }
+
+            int[] set = union(prefix, items);
+            if (!children.isEmpty()){
+                extend(set, children, sink);
+            }
+            if (!isSubsumed(set, node.tids)){
+                sink.add(set, set.length, node.tids.support);
+            }
+        }
+    }
+
+    /**
+     * Check whether a closed set with the same transactions containing the set was already found,
+     * and remember the set otherwise
+     */
+    private boolean isSubsumed(int[] set, TidSet tids){
+        List<int[]> sameHash = mClosed.computeIfAbsent(tids.hash(), hash -> new ArrayList<>(1));
+        for (int[] closed : sameHash){
+            // The support is stored in the last slot
+            if (closed[closed.length - 1] == tids.support && isSubset(set, closed, closed.length - 1)){
+                return true;
+            }
+        }
+        int[] entry = Arrays.copyOf(set, set.length + 1);
+        entry[set.length] = tids.support;
+        sameHash.add(entry);
+        return false;
+    }
+
+    /**
+     * @return true if the sorted {@code set} is contained in the first {@code length} items of the sorted {@code other}
+     */
+    static boolean isSubset(int[] set, int[] other, int length){
+        if (set.length > length){
+            return false;
+        }
+        int j = 0;
+        for (int item : set){
+            while (j < length && other[j] < item){
+                j++;
+            }
+            if (j == length || other[j] != item){
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    /**
+     * @return the sorted union of two sorted sets
+     */
+    private static int[] union(int[] first, int[] second){
+        int[] result = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < first.length || j < second.length){
+            if (j == second.length || (i < first.length && first[i] < second[j])){
+                result[k++] = first[i++];
+            } else if (i == first.length || second[j] < first[i]){
+                result[k++] = second[j++];
+            } else{
+                result[k++] = first[i++];
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * The items a branch adds to its prefix, and the transactions containing both
+     */
+    private static class Node {
+        final int[] items;
+        final TidSet tids;
+
+        Node(int[] items, TidSet tids){
+            this.items = items;
+            this.tids = tids;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+  An out of core variant of the Apriori Algorithm for databases larger than the heap
+  The database is never held in memory: each level streams the transactions once, from the .dat file
+  for the first two levels and then from a binary spill file written during the previous level
+  The pruning done in memory by Apriori is persisted in the spill: a transaction only keeps the items
+  of the current candidates and is only written if it contained a candidate, so each spill is smaller than the last
+  Memory use is bounded by the candidates of a level, not by the size of the database
+  The frequent items are replaced by their rank from the second level on, so arrays indexed by item are sized by
+  the number of frequent items whatever the item ids
+*/
+package datamining.apriori;
+
+import java.io.*;
+import java.util.*;
+
+public class DiskApriori {
+
+    /* Minimum support for frequent item set */
+    private int mThreshold;
+
+    /* The path to the .dat file */
+    private String mDataPath;
+
+    /* The directory holding the spill files, null for the default temporary directory */
+    private File mSpillDirectory;
+
+    /* Items below this are counted and ranked with arrays, the others with a hash, so memory stays bounded */
+    private static final int DENSE_ITEMS = 1 << 20;
+
+    /**
+     * Constructor for the class, nothing is read until generateFIS
+     * @param dataPath the path to the .dat file
+     * @param supportThreshold the threshold for support frequency
+     * @param spillDirectory the directory holding the spill files, null for the default temporary directory
+     */
+    public DiskApriori(String dataPath, int supportThreshold, File spillDirectory){
+        mDataPath = dataPath;
+        mThreshold = supportThreshold;
+        mSpillDirectory = spillDirectory;
+    }
+
+    /**
+     * Run the Apriori algorithm level by level, writing the frequent item sets of each level once it is counted
+     * @param output the sink receiving the item sets
+     * @return the number of frequent item sets found
+     * @throws IOException if reading the database or the spill files fails
+     */
+    public long generateFIS(ItemSetSink output) throws IOException {
+        // Count the frequent item set of size 1 with a first pass over the file
+        int[][] atomicFIS = {new int[1024]};
+        Map<Integer, Integer> sparseFIS = new HashMap<>();
+        new TransactionParser().parse(mDataPath, (line, count) -> {
+            for (int i = 0; i < count; i++){
+                if (line[i] >= DENSE_ITEMS){
+                    Integer support = sparseFIS.get(line[i]);
+                    sparseFIS.put(line[i], support == null ? 1 : support + 1);
+                    continue;
+                }
+                if (line[i] >= atomicFIS[0].length){
+                    atomicFIS[0] = Arrays.copyOf(atomicFIS[0],
+                            Math.min(DENSE_ITEMS, Math.max(atomicFIS[0].length * 2, line[i] + 1)));
+                }
+                atomicFIS[0][line[i]]++;
+            }
+        });
+
+        // Rank the frequent items in ascending order, the candidates and the spills hold ranks
+        List<Integer> sparse = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : sparseFIS.entrySet()){
+            if (entry.getValue() >= mThreshold){
+                sparse.add(entry.getKey());
+            }
+        }
+        Collections.sort(sparse);
+        int[] rankOf = new int[atomicFIS[0].length];
+        int ranks = 0;
+        for (int item = 0; item < atomicFIS[0].length; item++){
+            rankOf[item] = atomicFIS[0][item] > 0 && atomicFIS[0][item] >= mThreshold ? ranks++ : -1;
+        }
+        int[] itemOf = new int[ranks + sparse.size()];
+        int[] supportOf = new int[itemOf.length];
+        for (int item = 0; item < rankOf.length; item++){
+            if (rankOf[item] >= 0){
+                itemOf[rankOf[item]] = item;
+                supportOf[rankOf[item]] = atomicFIS[0][item];
+            }
+        }
+        for (int item : sparse){
+            itemOf[ranks] = item;
+            supportOf[ranks++] = sparseFIS.get(item);
+        }
+
+        long found = 0;
+        List<int[]> lastFIS = new ArrayList<>();
+        for (int rank = 0; rank < itemOf.length; rank++){
+            lastFIS.add(new int[]{rank});
+            output.add(new int[]{itemOf[rank]}, 1, supportOf[rank]);
+            found++;
+        }
+
+        TransactionSpill source = null;
+        try {
+            while (!lastFIS.isEmpty()){
+                List<int[]> candidates = Apriori.buildNewCandidates(lastFIS);
+                if (candidates.isEmpty()){
+                    break;
+                }
+
+                CandidateTrie trie = new CandidateTrie(candidates);
+                TransactionSpill next = new TransactionSpill(mSpillDirectory);
+                int[] counts;
+                try {
+                    counts = countLevel(source, itemOf, rankOf, trie, next);
+                } catch (IOException | RuntimeException e){
+                    next.close();
+                    throw e;
+                }
+                if (source != null){
+                    source.close();
+                }
+                source = next;
+
+                lastFIS = new ArrayList<>();
+                int[] set = new int[candidates.get(0).length];
+                for (int i = 0; i < trie.size(); i++){
+                    if (counts[i] >= mThreshold){
+                        int[] candidate = trie.candidate(i);
+                        lastFIS.add(candidate);
+                        for (int position = 0; position < set.length; position++){
+                            set[position] = itemOf[candidate[position]];
+                        }
+                        output.add(set, set.length, counts[i]);
+                        found++;
+                    }
+                }
+            }
+        } finally {
+            if (source != null){
+                source.close();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Stream the transactions once, counting the candidates and writing the pruned transactions to the next spill
+     * @param source the spill of the previous level holding ranks, null to read the items of the .dat file
+     * @param itemOf the frequent items in ascending order, indexed by rank
+     * @param rankOf the rank of each item below DENSE_ITEMS, -1 if not frequent; larger items are searched in itemOf
+     * @param trie the candidates of size k, as ranks
+     * @param next the spill receiving the ranks of the transactions still containing a candidate
+     * @return the support counts, indexed as the candidates in lexicographic order
+     */
+    private int[] countLevel(TransactionSpill source, int[] itemOf, int[] rankOf, CandidateTrie trie,
+                             TransactionSpill next) throws IOException {
+        int size = trie.candidate(0).length;
+        int[] counts = new int[trie.size()];
+
+        // Filtering the transactions using the ranks of the candidates
+        boolean[] dict = new boolean[itemOf.length];
+        for (int i = 0; i < trie.size(); i++){
+            for (int item : trie.candidate(i)){
+                dict[item] = true;
+            }
+        }
+
+        int[][] buffer = {new int[64]};
+        TransactionParser.Consumer counter = (line, length) -> {
+            if (length > buffer[0].length){
+                buffer[0] = new int[Math.max(length, buffer[0].length * 2)];
+            }
+            int[] items = buffer[0];
+            int kept = 0;
+            for (int i = 0; i < length; i++){
+                // The .dat file holds items, which keep their order once ranked
+                int rank = source != null ? line[i] : line[i] < rankOf.length ? rankOf[line[i]]
+                        : Arrays.binarySearch(itemOf, line[i]);
+                if (rank >= 0 && dict[rank]){
+                    items[kept++] = rank;
+                }
+            }
+            if (kept >= size && trie.count(items, 0, kept, counts)){
+                try {
+                    next.write(items, kept);
+                } catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        try {
+            if (source == null){
+                new TransactionParser().parse(mDataPath, counter);
+            } else{
+                source.forEach(counter);
+            }
+        } catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+        next.finish();
+        return counts;
+    }
+}
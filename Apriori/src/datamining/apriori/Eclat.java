@@ -0,0 +1,87 @@
+package datamining.apriori;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A vertical (Eclat) miner working on transaction id bitsets
+ * Each frequent item is turned into a bitset with one bit per transaction, the support of an item set
+ * is then the popcount of the AND of its items' bitsets, computed word by word
+ * Item sets are extended depth first in ascending item order, so every set is produced sorted and only once
+ */
+class Eclat {
+
+    /* Minimum support for frequent item set */
+    private final int mThreshold;
+
+    /* The frequent items in ascending order and their bitsets */
+    private final int[] mItems;
+    private final TidSet[] mTidSets;
+
+    /**
+     * Build the bitset of every frequent item
+     * @param transactions the encoded database, the sets being reported as ranks
+     * @param frequentItems the ranks of the items having at least {@code threshold} support
+     * @param threshold the threshold for support frequency
+     */
+    Eclat(TransactionStore transactions, List<Integer> frequentItems, int threshold){
+        mThreshold = threshold;
+
+        mItems = new int[frequentItems.size()];
+        for (int i = 0; i < mItems.length; i++){
+            mItems[i] = frequentItems.get(i);
+        }
+        Arrays.sort(mItems);
+        mTidSets = TidSet.forItems(transactions, mItems);
+    }
+
+    /**
+     * Mine every frequent item set of size 2 or more
+     * @param sink receives the item sets as they are found
+     */
+    void generateFIS(ItemSetSink sink){
+        List<Integer> items = new ArrayList<>();
+        List<TidSet> tidSets = new ArrayList<>();
+        for (int i = 0; i < mItems.length; i++){
+            items.add(mItems[i]);
+            tidSets.add(mTidSets[i]);
+        }
+
+        int[] prefix = new int[mItems.length + 1];
+        for (int i = 0; i < items.size(); i++){
+            prefix[0] = items.get(i);
+            extend(prefix, 1, tidSets.get(i), items, tidSets, i + 1, sink);
+        }
+    }
+
+    /**
+     * Extend the prefix by each later sibling, recursing into the frequent extensions
+     * @param prefix the items of the current set
+     * @param length the number of items in {@code prefix}
+     * @param prefixTids the transactions containing the prefix
+     * @param items the siblings of the last prefix item in ascending order
+     * @param tidSets the transactions containing the prefix without its last item and each sibling
+     * @param from the first sibling after the last prefix item
+     * @param sink receives the item sets as they are found
+     */
+    private void extend(int[] prefix, int length, TidSet prefixTids, List<Integer> items, List<TidSet> tidSets,
+                        int from, ItemSetSink sink){
+        List<Integer> nextItems = new ArrayList<>();
+        List<TidSet> nextTidSets = new ArrayList<>();
+        for (int j = from; j < items.size(); j++){
+            TidSet intersection = prefixTids.and(tidSets.get(j), mThreshold);
+            if (intersection != null){
+                nextItems.add(items.get(j));
+                nextTidSets.add(intersection);
+            }
+        }
+
+        for (int j = 0; j < nextItems.size(); j++){
+            prefix[length] = nextItems.get(j);
+            TidSet tids = nextTidSets.get(j);
+            sink.add(prefix, length + 1, tids.support);
+            extend(prefix, length + 1, tids, nextItems, nextTidSets, j + 1, sink);
+        }
+    }
+}
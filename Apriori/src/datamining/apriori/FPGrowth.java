@@ -0,0 +1,312 @@
+/*
+  A Java implementation of the FP-Growth Algorithm
+  Reads the same data format as Apriori and reports the item sets to the same sinks
+  Instead of generating candidates level by level, the transactions are compressed in a prefix tree (FP-tree)
+  ordered by descending item frequency, which is then mined recursively through conditional trees
+*/
+package datamining.apriori;
+
+import java.io.*;
+import java.util.*;
+
+public class FPGrowth {
+
+    /* Minimum support for frequent item set */
+    private int mThreshold;
+
+    /* The frequent items, indexed by rank (0 is the most frequent) */
+    private int[] mItems;
+
+    /* The tree built from the whole database */
+    private FPTree mTree;
+
+    /* The items of the set being reported */
+    private int[] mSetBuffer;
+
+    /**
+     * Constructor for the class
+     * Reads the database twice: once to count and rank the items, once to insert each transaction in the FP-tree
+     * @param dataPath the path to the .dat file
+     * @param supportThreshold the threshold for support frequency
+     */
+    public FPGrowth(String dataPath, int supportThreshold){
+        mThreshold = supportThreshold;
+
+        Map<Integer, Integer> atomicFIS = new HashMap<>();
+        TransactionParser parser = new TransactionParser();
+        try {
+            parser.parse(dataPath, (line, length) -> {
+                for (int i = 0; i < length; i++){
+                    Integer count = atomicFIS.get(line[i]);
+                    atomicFIS.put(line[i], count == null ? 1 : count + 1);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Rank the frequent items by descending frequency, ties broken by item
+        List<Map.Entry<Integer, Integer>> frequent = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : atomicFIS.entrySet()){
+            if (entry.getValue() >= mThreshold){
+                frequent.add(entry);
+            }
+        }
+        frequent.sort((a, b) -> !a.getValue().equals(b.getValue())
+                ? b.getValue() - a.getValue() : a.getKey() - b.getKey());
+
+        mItems = new int[frequent.size()];
+        Map<Integer, Integer> rankOf = new HashMap<>();
+        for (int i = 0; i < mItems.length; i++){
+            mItems[i] = frequent.get(i).getKey();
+            rankOf.put(mItems[i], i);
+        }
+
+        mTree = new FPTree(mItems.length);
+        mSetBuffer = new int[mItems.length];
+        int[][] ranks = {new int[16]};
+        try {
+            parser.parse(dataPath, (line, length) -> {
+                int count = 0;
+                for (int i = 0; i < length; i++){
+                    Integer rank = rankOf.get(line[i]);
+                    if (rank != null){
+                        if (count == ranks[0].length){
+                            ranks[0] = Arrays.copyOf(ranks[0], count * 2);
+                        }
+                        ranks[0][count++] = rank;
+                    }
+                }
+                Arrays.sort(ranks[0], 0, count);
+                mTree.insert(ranks[0], count, 1);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Run the FP-Growth algorithm and report every frequent item set as it is found
+     * @param output the sink receiving the item sets
+     * @return the number of frequent item sets found
+     */
+    public long generateFIS(ItemSetSink output){
+        return mine(mTree, new int[mItems.length], 0, output);
+    }
+
+    /**
+     * Mine the tree recursively
+     * @param tree the (conditional) FP-tree to be mined
+     * @param prefix the ranks of the items every pattern of {@code tree} is conditioned on
+     * @param prefixLength the number of items in {@code prefix}
+     * @param output the sink receiving the item sets
+     * @return the number of frequent item sets found
+     */
+    private long mine(FPTree tree, int[] prefix, int prefixLength, ItemSetSink output){
+        if (tree.isSinglePath()){
+            return minePath(tree, prefix, prefixLength, output);
+        }
+
+        long found = 0;
+        // From the least frequent item, so that conditional trees only hold more frequent items
+        for (int rank = tree.ranks - 1; rank >= 0; rank--){
+            if (tree.support[rank] < mThreshold){
+                continue;
+            }
+            prefix[prefixLength] = rank;
+            writeItemSet(prefix, prefixLength + 1, tree.support[rank], output);
+            found++;
+
+            FPTree conditional = tree.conditionalTree(rank, mThreshold);
+            if (conditional != null){
+                found += mine(conditional, prefix, prefixLength + 1, output);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A tree with a single path holds exactly the combinations of its nodes
+     * The support of a combination is the count of its deepest node
+     */
+    private long minePath(FPTree tree, int[] prefix, int prefixLength, ItemSetSink output){
+        return combinePath(tree, tree.singlePath(), 0, prefix, prefixLength, output);
+    }
+
+    /**
+     * Write every combination extending {@code prefix} with nodes of the path from position {@code index}
+     */
+    private long combinePath(FPTree tree, int[] path, int index, int[] prefix, int prefixLength, ItemSetSink output){
+        long found = 0;
+        for (int i = index; i < path.length; i++){
+            prefix[prefixLength] = tree.item[path[i]];
+            writeItemSet(prefix, prefixLength + 1, tree.count[path[i]], output);
+            found += 1 + combinePath(tree, path, i + 1, prefix, prefixLength + 1, output);
+        }
+        return found;
+    }
+
+    /**
+     * Report an item set with its items in ascending order
+     */
+    private void writeItemSet(int[] ranks, int length, int support, ItemSetSink output){
+        for (int i = 0; i < length; i++){
+            mSetBuffer[i] = mItems[ranks[i]];
+        }
+        Arrays.sort(mSetBuffer, 0, length);
+        output.add(mSetBuffer, length, support);
+    }
+
+    /**
+     * An FP-tree stored in flat arrays, node 0 being the root
+     * The children of a node are linked through {@code sibling}, the nodes of the same item through {@code link}
+     */
+    private static class FPTree {
+        int ranks;
+        int[] item;
+        int[] count;
+        int[] parent;
+        int[] firstChild;
+        int[] sibling;
+        int[] link;
+        int size;
+
+        /* The first node and the total count of each item */
+        int[] head;
+        int[] support;
+
+        FPTree(int ranks){
+            this.ranks = ranks;
+            int capacity = 64;
+            item = new int[capacity];
+            count = new int[capacity];
+            parent = new int[capacity];
+            firstChild = new int[capacity];
+            sibling = new int[capacity];
+            link = new int[capacity];
+            head = new int[ranks];
+            support = new int[ranks];
+            Arrays.fill(head, -1);
+
+            // The root
+            item[0] = -1;
+            parent[0] = -1;
+            firstChild[0] = -1;
+            sibling[0] = -1;
+            link[0] = -1;
+            size = 1;
+        }
+
+        /**
+         * Insert a path in the tree
+         * @param ranks the item ranks of the path, ascending
+         * @param length the number of items in the path
+         * @param weight the count of the path
+         */
+        void insert(int[] ranks, int length, int weight){
+            int node = 0;
+            for (int i = 0; i < length; i++){
+                int child = firstChild[node];
+                while (child != -1 && item[child] != ranks[i]){
+                    child = sibling[child];
+                }
+                if (child == -1){
+                    child = newNode(ranks[i], node);
+                }
+                count[child] += weight;
+                support[ranks[i]] += weight;
+                node = child;
+            }
+        }
+
+        private int newNode(int rank, int parentNode){
+            if (size == item.length){
+                int capacity = size * 2;
+                item = Arrays.copyOf(item, capacity);
+                count = Arrays.copyOf(count, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                sibling = Arrays.copyOf(sibling, capacity);
+                link = Arrays.copyOf(link, capacity);
+            }
+            int node = size++;
+            item[node] = rank;
+            count[node] = 0;
+            parent[node] = parentNode;
+            firstChild[node] = -1;
+            sibling[node] = firstChild[parentNode];
+            firstChild[parentNode] = node;
+            link[node] = head[rank];
+            head[rank] = node;
+            return node;
+        }
+
+        boolean isSinglePath(){
+            for (int node = 0; node < size; node++){
+                if (firstChild[node] != -1 && sibling[firstChild[node]] != -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the nodes of a single path tree from the top down, root excluded
+         */
+        int[] singlePath(){
+            int[] path = new int[size - 1];
+            int node = firstChild[0];
+            for (int i = 0; node != -1; i++){
+                path[i] = node;
+                node = firstChild[node];
+            }
+            return path;
+        }
+
+        /**
+         * Build the tree of the prefix paths of an item, keeping only the items frequent among those paths
+         * @param rank the item to be conditioned on
+         * @param threshold the minimum support
+         * @return the conditional tree, null if no item is frequent in it
+         */
+        FPTree conditionalTree(int rank, int threshold){
+            // Count the items of the conditional pattern base
+            int[] conditionalSupport = new int[rank];
+            for (int node = head[rank]; node != -1; node = link[node]){
+                for (int p = parent[node]; p != 0; p = parent[p]){
+                    conditionalSupport[item[p]] += count[node];
+                }
+            }
+
+            boolean empty = true;
+            for (int s : conditionalSupport){
+                if (s >= threshold){
+                    empty = false;
+                    break;
+                }
+            }
+            if (empty){
+                return null;
+            }
+
+            FPTree tree = new FPTree(rank);
+            int[] path = new int[rank];
+            for (int node = head[rank]; node != -1; node = link[node]){
+                int length = 0;
+                for (int p = parent[node]; p != 0; p = parent[p]){
+                    if (conditionalSupport[item[p]] >= threshold){
+                        path[length++] = item[p];
+                    }
+                }
+                // The path was collected bottom up, insert it top down
+                for (int i = 0, j = length - 1; i < j; i++, j--){
+                    int temp = path[i];
+                    path[i] = path[j];
+                    path[j] = temp;
+                }
+                tree.insert(path, length, count[node]);
+            }
+            return tree;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+  An incremental (FUP) variant of the Apriori Algorithm for a .dat file that only grows by appending transactions
+  The item sets of the last run are kept in a state file with their support, the number of transactions
+  and the length of the file they were mined from
+  On the next run only the appended transactions are read for the item sets already known: an item set
+  that was not frequent before can only become frequent if it is frequent enough in the new transactions,
+  so the old transactions are only read for those candidates, and only on the levels having any
+  The relative support of the first run is kept, the threshold growing with the number of transactions
+*/
+package datamining.apriori;
+
+import java.io.*;
+import java.util.*;
+
+public class IncrementalApriori {
+
+    private static final int STATE_MAGIC = 0x46555031;
+
+    /* The path to the .dat file */
+    private String mDataPath;
+
+    /* The threshold for support frequency of the first run */
+    private int mThreshold;
+
+    /* The path to the state of the last run */
+    private File mState;
+
+    /* The threshold used by the last call of generateFIS */
+    private int mLastThreshold;
+
+    /**
+     * Constructor for the class, nothing is read until generateFIS
+     * @param dataPath the path to the .dat file, only ever appended to between runs
+     * @param supportThreshold the threshold for support frequency when there is no state yet
+     * @param statePath the path to the state file, created by the first run and updated by each run
+     */
+    public IncrementalApriori(String dataPath, int supportThreshold, String statePath){
+        mDataPath = dataPath;
+        mThreshold = supportThreshold;
+        mState = new File(statePath);
+    }
+
+    /**
+     * Update the frequent item sets with the transactions appended since the last run, or mine the whole
+     * file if there is no usable state, and save the new state
+     * @param output the sink receiving every frequent item set of the whole file
+     * @return the number of frequent item sets found
+     * @throws IOException if reading the database or the state, or writing the state fails
+     * @throws IllegalArgumentException if the state was mined with another threshold for support frequency
+     */
+    public long generateFIS(ItemSetSink output) throws IOException {
+        long length = new File(mDataPath).length();
+        State state = mState.exists() ? State.read(mState) : null;
+        if (state != null && state.baseTransactions > 0 && state.baseThreshold != mThreshold){
+            throw new IllegalArgumentException("The state was mined with a support threshold of "
+                    + state.baseThreshold + ", not " + mThreshold + "; remove it to mine with another threshold");
+        }
+        if (state == null || state.bytes > length || state.baseTransactions == 0){
+            state = mineAll(length);
+        } else if (state.bytes < length){
+            state = update(state, length);
+        }
+        mLastThreshold = state.threshold;
+
+        long found = 0;
+        for (ItemSetCounter sets : state.itemSets){
+            for (int i = 0; i < sets.size(); i++){
+                output.add(sets.get(i), sets.width(), sets.count(i));
+                found++;
+            }
+        }
+        state.write(mState);
+        return found;
+    }
+
+    /**
+     * @return the threshold for support frequency of the last call of generateFIS
+     */
+    public int getThreshold(){
+        return mLastThreshold;
+    }
+
+    /**
+     * Mine the whole file with Apriori
+     */
+    private State mineAll(long length) throws IOException {
+        TransactionStore data = new TransactionStore();
+        new TransactionParser().parse(mDataPath, 0, length, data::add);
+        data.trim();
+
+        State state = new State();
+        state.bytes = length;
+        state.transactions = data.size();
+        state.baseThreshold = mThreshold;
+        state.baseTransactions = data.size();
+        state.threshold = mThreshold;
+
+        Apriori apriori = new Apriori(data, mThreshold);
+        apriori.setItemSetSink(state::add);
+        apriori.generateFIS();
+        return state;
+    }
+
+    /**
+     * Update the state of the bytes [0, state.bytes) with the transactions appended up to {@code length}
+     */
+    private State update(State old, long length) throws IOException {
+        TransactionStore delta = new TransactionStore();
+        new TransactionParser().parse(mDataPath, old.bytes, length, delta::add);
+        delta.trim();
+        delta.encode();
+
+        State state = new State();
+        state.bytes = length;
+        state.transactions = old.transactions + delta.size();
+        state.baseThreshold = old.baseThreshold;
+        state.baseTransactions = old.baseTransactions;
+        state.threshold = (int) ((state.baseThreshold * state.transactions + state.baseTransactions - 1)
+                / state.baseTransactions);
+
+        // A set not frequent before has at most old.threshold - 1 old transactions, so it needs this many new ones
+        int deltaThreshold = Math.max(1, state.threshold - old.threshold + 1);
+
+        // Level 1: the items of the new transactions, counted by rank when encoding, and the items known before
+        SortedSet<Integer> items = new TreeSet<>();
+        for (int rank = 0; rank < delta.distinctItems(); rank++){
+            items.add(delta.item(rank));
+        }
+        ItemSetCounter oldItems = old.level(1);
+        for (int i = 0; oldItems != null && i < oldItems.size(); i++){
+            items.add(oldItems.itemAt(i, 0));
+        }
+        List<int[]> candidates = new ArrayList<>();
+        int[] deltaCounts = new int[items.size()];
+        for (int item : items){
+            int rank = delta.rank(item);
+            deltaCounts[candidates.size()] = rank < 0 ? 0 : delta.supports()[rank];
+            candidates.add(new int[]{item});
+        }
+        List<int[]> lastFIS = updateLevel(old, state, candidates, deltaCounts, deltaThreshold);
+
+        // Level k: count the candidates in the new transactions with a trie
+        while (!lastFIS.isEmpty()){
+            candidates = Apriori.buildNewCandidates(lastFIS);
+            if (candidates.isEmpty()){
+                break;
+            }
+            lastFIS = updateLevel(old, state, candidates, countDelta(delta, candidates), deltaThreshold);
+        }
+        return state;
+    }
+
+    /**
+     * Count the support of candidates in the new transactions, held by their ranks
+     * @return the support counts, indexed as {@code candidates}
+     */
+    private static int[] countDelta(TransactionStore delta, List<int[]> candidates){
+        int[] counts = new int[candidates.size()];
+
+        // A candidate holding an item absent from the new transactions has no support there
+        List<int[]> ranked = new ArrayList<>();
+        List<Integer> indexOf = new ArrayList<>();
+        for (int c = 0; c < candidates.size(); c++){
+            int[] candidate = candidates.get(c);
+            int[] ranks = new int[candidate.length];
+            boolean present = true;
+            for (int i = 0; i < ranks.length && present; i++){
+                ranks[i] = delta.rank(candidate[i]);
+                present = ranks[i] >= 0;
+            }
+            if (present){
+                ranked.add(ranks);
+                indexOf.add(c);
+            }
+        }
+        if (ranked.isEmpty()){
+            return counts;
+        }
+
+        // The candidates are in lexicographic order and ranks keep the order of the items, so the trie keeps their order
+        CandidateTrie trie = new CandidateTrie(ranked);
+        int[] trieCounts = new int[trie.size()];
+        int[] items = delta.items();
+        for (int line = 0; line < delta.size(); line++){
+            trie.count(items, delta.offset(line), delta.offset(line) + delta.length(line), trieCounts);
+        }
+        for (int i = 0; i < trieCounts.length; i++){
+            counts[indexOf.get(i)] = trieCounts[i];
+        }
+        return counts;
+    }
+
+    /**
+     * Find the frequent sets of a level from their support in the new transactions
+     * @param old the state of the last run
+     * @param state the new state, receiving the frequent sets
+     * @param candidates the candidates of the level
+     * @param deltaSupport the support of each candidate in the new transactions
+     * @param deltaThreshold the support in the new transactions a set unknown to the old state needs
+     * @return the frequent sets of the level, empty if there is no candidate
+     */
+    private List<int[]> updateLevel(State old, State state, List<int[]> candidates,
+                                    int[] deltaSupport, int deltaThreshold)
+            throws IOException {
+        if (candidates.isEmpty()){
+            return new ArrayList<>();
+        }
+        int size = candidates.get(0).length;
+        ItemSetCounter known = old.level(size);
+        List<int[]> frequent = new ArrayList<>();
+        List<int[]> unknown = new ArrayList<>();
+        List<Integer> unknownDelta = new ArrayList<>();
+
+        for (int c = 0; c < candidates.size(); c++){
+            int[] candidate = candidates.get(c);
+            int index = known == null ? -1 : known.indexOf(candidate);
+            int support = deltaSupport[c];
+            if (index >= 0){
+                // Known set: the old support is in the state
+                if (known.count(index) + support >= state.threshold){
+                    frequent.add(candidate);
+                    state.add(candidate, size, known.count(index) + support);
+                }
+            } else if (support >= deltaThreshold){
+                unknown.add(candidate);
+                unknownDelta.add(support);
+            }
+        }
+
+        if (!unknown.isEmpty()){
+            int[] oldCounts = countOld(old.bytes, unknown);
+            for (int i = 0; i < unknown.size(); i++){
+                int support = oldCounts[i] + unknownDelta.get(i);
+                if (support >= state.threshold){
+                    frequent.add(unknown.get(i));
+                    state.add(unknown.get(i), size, support);
+                }
+            }
+        }
+        return frequent;
+    }
+
+    /**
+     * Count the support of candidates in the old transactions, streamed from the file
+     * @return the support counts, indexed as {@code candidates}
+     */
+    private int[] countOld(long bytes, List<int[]> candidates) throws IOException {
+        CandidateTrie trie = new CandidateTrie(candidates);
+        int size = trie.candidate(0).length;
+        int[] trieCounts = new int[trie.size()];
+
+        // Filtering the transactions using the items of the candidates, searched in ascending order
+        SortedSet<Integer> candidateItems = new TreeSet<>();
+        for (int[] candidate : candidates){
+            for (int item : candidate){
+                candidateItems.add(item);
+            }
+        }
+        int[] dict = new int[candidateItems.size()];
+        int next = 0;
+        for (int item : candidateItems){
+            dict[next++] = item;
+        }
+
+        int[][] buffer = {new int[64]};
+        new TransactionParser().parse(mDataPath, 0, bytes, (line, length) -> {
+            if (length > buffer[0].length){
+                buffer[0] = new int[Math.max(length, buffer[0].length * 2)];
+            }
+            int kept = 0;
+            for (int i = 0; i < length; i++){
+                if (Arrays.binarySearch(dict, line[i]) >= 0){
+                    buffer[0][kept++] = line[i];
+                }
+            }
+            trie.count(buffer[0], 0, kept, trieCounts);
+        });
+
+        // The trie counts in lexicographic order, the result is in the order of the candidates
+        ItemSetCounter index = new ItemSetCounter(size, trie.size());
+        for (int i = 0; i < trie.size(); i++){
+            index.setCount(index.add(trie.candidate(i)), trieCounts[i]);
+        }
+        int[] counts = new int[candidates.size()];
+        for (int i = 0; i < counts.length; i++){
+            counts[i] = index.count(index.indexOf(candidates.get(i)));
+        }
+        return counts;
+    }
+
+    /**
+     * The frequent item sets of a prefix of the file and what is needed to update them
+     */
+    private static class State {
+        /* The length of the file the item sets were mined from */
+        long bytes;
+
+        /* Number of transactions in those bytes */
+        long transactions;
+
+        /* The threshold and number of transactions of the first run, which set the relative support */
+        int baseThreshold;
+        long baseTransactions;
+
+        /* The threshold the item sets were mined with */
+        int threshold;
+
+        /* The frequent item sets with their support, the sets of size k at index k - 1 */
+        List<ItemSetCounter> itemSets = new ArrayList<>();
+
+        void add(int[] items, int length, int support){
+            while (itemSets.size() < length){
+                itemSets.add(new ItemSetCounter(itemSets.size() + 1, 1024));
+            }
+            ItemSetCounter sets = itemSets.get(length - 1);
+            sets.setCount(sets.add(items), support);
+        }
+
+        /**
+         * @return the sets of the given size, null if there is none
+         */
+        ItemSetCounter level(int size){
+            return size <= itemSets.size() ? itemSets.get(size - 1) : null;
+        }
+
+        /**
+         * Save the state, replacing the file only once it is completely written
+         */
+        void write(File file) throws IOException {
+            File temporary = new File(file.getPath() + ".tmp");
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary)))){
+                output.writeInt(STATE_MAGIC);
+                output.writeLong(bytes);
+                output.writeLong(transactions);
+                output.writeInt(baseThreshold);
+                output.writeLong(baseTransactions);
+                output.writeInt(threshold);
+                output.writeInt(itemSets.size());
+                for (ItemSetCounter sets : itemSets){
+                    output.writeInt(sets.size());
+                    for (int i = 0; i < sets.size(); i++){
+                        for (int position = 0; position < sets.width(); position++){
+                            output.writeInt(sets.itemAt(i, position));
+                        }
+                        output.writeInt(sets.count(i));
+                    }
+                }
+            }
+            if (file.exists() && !file.delete() || !temporary.renameTo(file)){
+                throw new IOException("Cannot replace the state file " + file);
+            }
+        }
+
+        /**
+         * Load a state saved by write
+         */
+        static State read(File file) throws IOException {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+                if (input.readInt() != STATE_MAGIC){
+                    throw new IOException("Not an incremental Apriori state: " + file);
+                }
+                State state = new State();
+                state.bytes = input.readLong();
+                state.transactions = input.readLong();
+                state.baseThreshold = input.readInt();
+                state.baseTransactions = input.readLong();
+                state.threshold = input.readInt();
+                int levels = input.readInt();
+                int[] set = new int[levels];
+                for (int size = 1; size <= levels; size++){
+                    int count = input.readInt();
+                    ItemSetCounter sets = new ItemSetCounter(size, count);
+                    for (int i = 0; i < count; i++){
+                        for (int position = 0; position < size; position++){
+                            set[position] = input.readInt();
+                        }
+                        sets.setCount(sets.add(set), input.readInt());
+                    }
+                    state.itemSets.add(sets);
+                }
+                return state;
+            }
+        }
+    }
+}
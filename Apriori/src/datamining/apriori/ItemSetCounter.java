@@ -0,0 +1,182 @@
+package datamining.apriori;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table counting item sets of a fixed size k
+ * Item sets are stored back to back in a single int array and looked up by their content,
+ * so counting a subset of a transaction does not allocate any key object
+ * Entries are indexed in insertion order, starting from 0
+ */
+class ItemSetCounter {
+
+    /* The number of items in every set of this counter */
+    private final int width;
+
+    /* The items of all entries, entry i occupies [i * width, (i + 1) * width) */
+    private int[] items;
+
+    /* The count of each entry */
+    private int[] counts;
+
+    /* The hash table, each slot holds the entry index + 1, 0 marks an empty slot */
+    private int[] table;
+
+    /* Number of entries stored */
+    private int size;
+
+    /**
+     * Constructor for the class
+     * @param width the size of each item set to be counted
+     * @param expectedSize the expected number of distinct item sets
+     */
+    ItemSetCounter(int width, int expectedSize){
+        this.width = width;
+        int capacity = Math.max(16, expectedSize);
+        items = new int[capacity * width];
+        counts = new int[capacity];
+
+        // Keep the load factor of the table under 0.5
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        table = new int[tableSize];
+        size = 0;
+    }
+
+    /**
+     * Find the index of the given set
+     * @param set the sorted item set of size k
+     * @return the index of the entry, or -1 if the set is not in the counter
+     */
+    int indexOf(int[] set){
+        int mask = table.length - 1;
+        int slot = hash(set) & mask;
+        while (table[slot] != 0){
+            int index = table[slot] - 1;
+            if (matches(index, set)){
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Insert the set with a count of 0 if it is not present yet
+     * The content of {@code set} is copied, so the caller may reuse the array
+     * @param set the sorted item set of size k
+     * @return the index of the entry
+     */
+    int add(int[] set){
+        int mask = table.length - 1;
+        int slot = hash(set) & mask;
+        while (table[slot] != 0){
+            int index = table[slot] - 1;
+            if (matches(index, set)){
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == counts.length){
+            counts = Arrays.copyOf(counts, size * 2);
+            items = Arrays.copyOf(items, size * 2 * width);
+        }
+        System.arraycopy(set, 0, items, size * width, width);
+        counts[size] = 0;
+        table[slot] = ++size;
+
+        if (size * 2 > table.length){
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Set the count of an existing entry
+     * @param index the index of the entry
+     * @param count the new count
+     */
+    void setCount(int index, int count){
+        counts[index] = count;
+    }
+
+    int count(int index){
+        return counts[index];
+    }
+
+    int size(){
+        return size;
+    }
+
+    int width(){
+        return width;
+    }
+
+    /**
+     * Copy out the item set of an entry
+     * @param index the index of the entry
+     * @return a new array holding the sorted item set
+     */
+    int[] get(int index){
+        return Arrays.copyOfRange(items, index * width, (index + 1) * width);
+    }
+
+    /**
+     * Read a single item of an entry without copying
+     * @param index the index of the entry
+     * @param position the position of the item inside the set
+     * @return the item
+     */
+    int itemAt(int index, int position){
+        return items[index * width + position];
+    }
+
+    private boolean matches(int index, int[] set){
+        int offset = index * width;
+        for (int i = 0; i < width; i++){
+            if (items[offset + i] != set[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(int[] set){
+        int h = 0;
+        for (int i = 0; i < width; i++){
+            h = h * 0x9E3779B1 + set[i];
+        }
+        return mix(h);
+    }
+
+    private int hashEntry(int index){
+        int h = 0;
+        int offset = index * width;
+        for (int i = 0; i < width; i++){
+            h = h * 0x9E3779B1 + items[offset + i];
+        }
+        return mix(h);
+    }
+
+    /**
+     * Spread every bit over the low bits the table is indexed by, so that sets differing only in their last item
+     * do not land in consecutive slots and merge into long probe runs
+     */
+    private static int mix(int h){
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private void rehash(){
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++){
+            int slot = hashEntry(index) & mask;
+            while (table[slot] != 0){
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+}
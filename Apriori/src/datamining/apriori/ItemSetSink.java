@@ -0,0 +1,14 @@
+package datamining.apriori;
+
+/**
+ * Receives the frequent item sets found by a miner, one at a time
+ */
+public interface ItemSetSink {
+
+    /**
+     * @param items the items of the set in ascending order, only valid during the call
+     * @param length the number of items at the start of {@code items}
+     * @param support the support count of the set
+     */
+    void add(int[] items, int length, int support);
+}
@@ -0,0 +1,23 @@
+package datamining.apriori;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A sink writing the frequent item sets to a file as they are found, so the results are never held in memory
+ * Writing failures are thrown as UncheckedIOException from add, and as IOException from close
+ * Not thread safe, the miners report their item sets from a single thread
+ */
+public interface ItemSetWriter extends ItemSetSink, Closeable {
+
+    /**
+     * Open the writer of the given format, replacing the content of the file
+     * @param path the path to the output file
+     * @param binary true for the varint encoded format of BinaryItemSetWriter, false for the text format
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    static ItemSetWriter open(String path, boolean binary) throws IOException {
+        return binary ? new BinaryItemSetWriter(path) : new TextItemSetWriter(path);
+    }
+}
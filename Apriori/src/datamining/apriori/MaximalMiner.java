@@ -0,0 +1,167 @@
+package datamining.apriori;
+
+import java.util.*;
+
+/**
+ * A maximal frequent item set miner (in the style of MAFIA) working on the transaction id bitsets of Eclat
+ * An item set is maximal when no superset is frequent; every frequent set is a subset of a maximal one
+ * The search is depth first with three prunings:
+ * an item occurring in every transaction of the current set is added to it without branching,
+ * a branch whose set and remaining items are all contained in a known maximal set is skipped,
+ * and a branch whose set and remaining items are frequent together is reported at once
+ * Each branch only checks the maximal sets containing its set, which are passed down the search
+ */
+class MaximalMiner {
+
+    /* Minimum support for frequent item set */
+    private final int mThreshold;
+
+    /* The frequent items in ascending order and their bitsets */
+    private final int[] mItems;
+    private final TidSet[] mTidSets;
+
+    /* Number of words of an item bitset, one bit per frequent item */
+    private final int mWords;
+
+    /**
+     * Build the bitset of every frequent item
+     * @param transactions the encoded database, the sets being reported as ranks
+     * @param frequentItems the ranks of the items having at least {@code threshold} support
+     * @param threshold the threshold for support frequency
+     */
+    MaximalMiner(TransactionStore transactions, List<Integer> frequentItems, int threshold){
+        mThreshold = threshold;
+
+        mItems = new int[frequentItems.size()];
+        for (int i = 0; i < mItems.length; i++){
+            mItems[i] = frequentItems.get(i);
+        }
+        Arrays.sort(mItems);
+        mTidSets = TidSet.forItems(transactions, mItems);
+        mWords = (mItems.length + 63) >>> 6;
+    }
+
+    /**
+     * Mine every maximal frequent item set
+     * @param sink receives the item sets as they are found
+     */
+    void generateFIS(ItemSetSink sink){
+        int[] tail = new int[mItems.length];
+        for (int i = 0; i < tail.length; i++){
+            tail[i] = i;
+        }
+        extend(new long[mWords], tail, mTidSets.clone(), new ArrayList<>(), sink);
+    }
+
+    /**
+     * Extend the head by each item of the tail in turn, the later items of the tail becoming the new tail
+     * @param head the current set, as a bitset of item indices
+     * @param tail the indices of the items that may extend the head
+     * @param tailTids the transactions containing the head and each tail item
+     * @param maximal the maximal sets found so far containing the head, as item bitsets, receiving those found here
+     * @param sink receives the item sets as they are found
+     */
+    private void extend(long[] head, int[] tail, TidSet[] tailTids, List<long[]> maximal, ItemSetSink sink){
+        // Skip the branch if everything it could find is already covered
+        long[] all = head.clone();
+        for (int item : tail){
+            all[item >>> 6] |= 1L << item;
+        }
+        if (isSubsumed(all, maximal)){
+            return;
+        }
+
+        // The whole branch is frequent together, it holds a single maximal set
+        if (tail.length > 1){
+            TidSet tids = tailTids[0];
+            for (int i = 1; i < tail.length && tids != null; i++){
+                tids = tids.and(tailTids[i], mThreshold);
+            }
+            if (tids != null){
+                report(all, tids.support, maximal, sink);
+                return;
+            }
+        }
+
+        // Less frequent items first, so that the branches are narrow and maximal sets are found early
+        Integer[] order = new Integer[tail.length];
+        for (int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tailTids[a].support - tailTids[b].support);
+
+        for (int i = 0; i < order.length; i++){
+            int item = tail[order[i]];
+            TidSet tids = tailTids[order[i]];
+            long[] next = head.clone();
+            next[item >>> 6] |= 1L << item;
+
+            int[] nextTail = new int[order.length - i - 1];
+            TidSet[] nextTids = new TidSet[nextTail.length];
+            int size = 0;
+            for (int j = i + 1; j < order.length; j++){
+                TidSet both = tids.and(tailTids[order[j]], mThreshold);
+                if (both == null){
+                    continue;
+                }
+                int other = tail[order[j]];
+                if (both.support == tids.support){
+                    // The item occurs in every transaction of the new head, every maximal set of the branch holds it
+                    next[other >>> 6] |= 1L << other;
+                } else{
+                    nextTail[size] = other;
+                    nextTids[size++] = both;
+                }
+            }
+
+            List<long[]> local = new ArrayList<>();
+            for (long[] set : maximal){
+                if (contains(set, next)){
+                    local.add(set);
+                }
+            }
+            int known = local.size();
+            if (size == 0){
+                if (known == 0){
+                    report(next, tids.support, local, sink);
+                }
+            } else{
+                extend(next, Arrays.copyOf(nextTail, size), Arrays.copyOf(nextTids, size), local, sink);
+            }
+            maximal.addAll(local.subList(known, local.size()));
+        }
+    }
+
+    /**
+     * @return true if the set is contained in one of the maximal sets
+     */
+    private boolean isSubsumed(long[] set, List<long[]> maximalSets){
+        for (long[] maximal : maximalSets){
+            if (contains(maximal, set)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(long[] superset, long[] set){
+        for (int w = 0; w < mWords; w++){
+            if ((set[w] & ~superset[w]) != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void report(long[] set, int support, List<long[]> maximal, ItemSetSink sink){
+        maximal.add(set);
+        int[] items = new int[mItems.length];
+        int length = 0;
+        for (int w = 0; w < mWords; w++){
+            for (long word = set[w]; word != 0; word &= word - 1){
+                items[length++] = mItems[(w << 6) + Long.numberOfTrailingZeros(word)];
+            }
+        }
+        sink.add(items, length, support);
+    }
+}
@@ -0,0 +1,195 @@
+package datamining.apriori;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the association rules X => Y of the frequent item sets reported to it
+ * The item sets and their supports are kept in one hash index per size, so the support of the antecedent and
+ * of the consequent of a rule is looked up instead of being counted again
+ * For each item set the consequents are grown from single items by prefix join, and a consequent is only
+ * extended if its rule reached the minimum confidence, since moving items from the antecedent to the consequent
+ * can only lower the confidence
+ * Item sets are processed in parallel in chunks, the rules being written in the order of the item sets
+ */
+public class RuleGenerator implements ItemSetSink {
+
+    /* Number of item sets processed by a single task */
+    private static final int CHUNK_SIZE = 1024;
+
+    /* The frequent item sets with their support, the sets of size k at index k - 1 */
+    private final List<ItemSetCounter> mItemSets = new ArrayList<>();
+
+    /* Number of transactions of the database, to compute the lift */
+    private final long mTransactions;
+
+    private final double mMinConfidence;
+    private final double mMinLift;
+
+    /* Number of threads generating the rules */
+    private int mThreads = 1;
+
+    /**
+     * @param transactions the number of transactions the item sets were mined from
+     * @param minConfidence the minimum confidence of a rule, support(X u Y) / support(X)
+     * @param minLift the minimum lift of a rule, confidence / (support(Y) / transactions)
+     */
+    public RuleGenerator(long transactions, double minConfidence, double minLift){
+        mTransactions = transactions;
+        mMinConfidence = minConfidence;
+        mMinLift = minLift;
+    }
+
+    public void setThreads(int threads){
+        mThreads = Math.max(1, threads);
+    }
+
+    @Override
+    public void add(int[] items, int length, int support){
+        while (mItemSets.size() < length){
+            mItemSets.add(new ItemSetCounter(mItemSets.size() + 1, 1024));
+        }
+        int[] set = new int[length];
+        System.arraycopy(items, 0, set, 0, length);
+        ItemSetCounter sets = mItemSets.get(length - 1);
+        sets.setCount(sets.add(set), support);
+    }
+
+    /**
+     * Generate the rules of every item set of size 2 or more
+     * Each rule is written on its own line as "antecedent => consequent (support, confidence, lift)"
+     * @param output the writer receiving the rules
+     * @return the number of rules written
+     * @throws IOException if writing fails, or an InterruptedIOException if interrupted before every rule is written
+     */
+    public long generateRules(Writer output) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(mThreads);
+        long rules = 0;
+        try {
+            for (int size = 2; size <= mItemSets.size(); size++){
+                ItemSetCounter sets = mItemSets.get(size - 1);
+
+                // Only a few chunks are in flight at once, so the pending rules stay bounded
+                int batch = CHUNK_SIZE * mThreads * 4;
+                for (int start = 0; start < sets.size(); start += batch){
+                    List<Future<Rules>> chunks = new ArrayList<>();
+                    for (int from = start; from < Math.min(sets.size(), start + batch); from += CHUNK_SIZE){
+                        int chunkFrom = from;
+                        int chunkTo = Math.min(sets.size(), from + CHUNK_SIZE);
+                        chunks.add(pool.submit(() -> generateRules(sets, chunkFrom, chunkTo)));
+                    }
+                    for (Future<Rules> chunk : chunks){
+                        Rules generated = chunk.get();
+                        output.append(generated.text);
+                        rules += generated.count;
+                    }
+                }
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating the rules");
+        } catch (ExecutionException e){
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return rules;
+    }
+
+    /**
+     * Generate the rules of the item sets [from, to) of the same size
+     */
+    private Rules generateRules(ItemSetCounter sets, int from, int to){
+        Rules res = new Rules();
+        int size = sets.width();
+        int[] antecedent = new int[size];
+        for (int index = from; index < to; index++){
+            int[] set = sets.get(index);
+            int support = sets.count(index);
+
+            List<int[]> consequents = new ArrayList<>();
+            for (int item : set){
+                consequents.add(new int[]{item});
+            }
+            for (int length = 1; length < size && !consequents.isEmpty(); length++){
+                List<int[]> confident = new ArrayList<>();
+                for (int[] consequent : consequents){
+                    // The antecedent is the set without the consequent, both sorted
+                    int kept = 0;
+                    int c = 0;
+                    for (int item : set){
+                        if (c < consequent.length && consequent[c] == item){
+                            c++;
+                        } else{
+                            antecedent[kept++] = item;
+                        }
+                    }
+                    int[] x = new int[kept];
+                    System.arraycopy(antecedent, 0, x, 0, kept);
+                    int antecedentSupport = support(x);
+                    int consequentSupport = support(consequent);
+                    if (antecedentSupport <= 0 || consequentSupport <= 0){
+                        continue;
+                    }
+
+                    double confidence = (double) support / antecedentSupport;
+                    if (confidence < mMinConfidence){
+                        continue;
+                    }
+                    confident.add(consequent);
+                    double lift = confidence * mTransactions / consequentSupport;
+                    if (lift >= mMinLift){
+                        appendRule(res, x, consequent, support, confidence, lift);
+                    }
+                }
+                if (confident.isEmpty() || length + 1 >= size){
+                    break;
+                }
+                consequents = Apriori.buildNewCandidates(confident);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return the support of a sorted set, 0 if it was not reported
+     */
+    private int support(int[] set){
+        if (set.length > mItemSets.size()){
+            return 0;
+        }
+        ItemSetCounter sets = mItemSets.get(set.length - 1);
+        int index = sets.indexOf(set);
+        return index < 0 ? 0 : sets.count(index);
+    }
+
+    private static void appendRule(Rules rules, int[] antecedent, int[] consequent,
+                                   int support, double confidence, double lift){
+        StringBuilder res = rules.text;
+        rules.count++;
+        for (int item : antecedent){
+            res.append(item).append(' ');
+        }
+        res.append("=>");
+        for (int item : consequent){
+            res.append(' ').append(item);
+        }
+        res.append(" (").append(support)
+                .append(", ").append(Math.round(confidence * 10000) / 10000.0)
+                .append(", ").append(Math.round(lift * 10000) / 10000.0).append(")\n");
+    }
+
+    /**
+     * The rules generated by a task, as text
+     */
+    private static class Rules {
+        final StringBuilder text = new StringBuilder();
+        long count;
+    }
+}
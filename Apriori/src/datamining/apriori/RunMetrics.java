@@ -0,0 +1,205 @@
+package datamining.apriori;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measurements of a mining run, written as a JSON report
+ * The miners only touch it once per level or once per counting task, so collecting costs nothing measurable;
+ * the item sets are counted by size by wrapping the output sink
+ */
+public class RunMetrics {
+
+    /* Describes the run */
+    private String mAlgorithm;
+    private String mDataPath;
+    private int mThreshold;
+    private int mThreads;
+
+    /* The database as loaded by Apriori, -1 if the miner did not load it */
+    private long mTransactions = -1;
+    private long mItems = -1;
+    private long mItemOccurrences = -1;
+
+    private long mStart;
+    private long mRunNanos;
+
+    /* Number of item sets reported, by size */
+    private long[] mItemSetsBySize = new long[8];
+
+    private final List<Level> mLevels = new ArrayList<>();
+
+    /**
+     * The measurements of a level of Apriori, the candidates of size k
+     */
+    public static class Level {
+        final int size;
+        long candidates;
+        long subsetPruned;
+        long frequent;
+        String strategy;
+        long generationNanos;
+        /* The time spent filtering the items and choosing the counting strategy, calibration included */
+        long selectionNanos;
+        long validationNanos;
+        long heapUsed;
+
+        /* Updated by the counting tasks of the level */
+        final AtomicLong scannedTransactions = new AtomicLong();
+        final AtomicLong skippedTransactions = new AtomicLong();
+
+        Level(int size){
+            this.size = size;
+        }
+    }
+
+    /**
+     * Start measuring a run
+     */
+    public void start(String algorithm, String dataPath, int supportThreshold, int threads){
+        mAlgorithm = algorithm;
+        mDataPath = dataPath;
+        mThreshold = supportThreshold;
+        mThreads = threads;
+        mStart = System.nanoTime();
+    }
+
+    public void stop(){
+        mRunNanos = System.nanoTime() - mStart;
+    }
+
+    /**
+     * @param transactions the number of transactions
+     * @param items the number of distinct items
+     * @param itemOccurrences the number of items over all the transactions
+     */
+    void setDatabase(long transactions, long items, long itemOccurrences){
+        mTransactions = transactions;
+        mItems = items;
+        mItemOccurrences = itemOccurrences;
+    }
+
+    Level newLevel(int size){
+        Level level = new Level(size);
+        mLevels.add(level);
+        return level;
+    }
+
+    /**
+     * Count the item sets passing through a sink
+     * @param sink the sink receiving the item sets
+     * @return a sink counting each item set by size before passing it on
+     */
+    public ItemSetSink counting(ItemSetSink sink){
+        return (items, length, support) -> {
+            if (length >= mItemSetsBySize.length){
+                mItemSetsBySize = Arrays.copyOf(mItemSetsBySize, Math.max(length + 1, mItemSetsBySize.length * 2));
+            }
+            mItemSetsBySize[length]++;
+            sink.add(items, length, support);
+        };
+    }
+
+    /**
+     * @return the sum of the peak usage of every heap memory pool since the start of the JVM
+     */
+    static long peakHeap(){
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null){
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Write the report as a JSON object
+     * @param output the writer receiving the report
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer output) throws IOException {
+        StringBuilder res = new StringBuilder();
+        res.append("{\n");
+        res.append("  \"algorithm\": ").append(quote(mAlgorithm)).append(",\n");
+        res.append("  \"data\": ").append(quote(mDataPath)).append(",\n");
+        res.append("  \"supportThreshold\": ").append(mThreshold).append(",\n");
+        res.append("  \"threads\": ").append(mThreads).append(",\n");
+        if (mTransactions >= 0){
+            res.append("  \"transactions\": ").append(mTransactions).append(",\n");
+            res.append("  \"items\": ").append(mItems).append(",\n");
+            res.append("  \"itemOccurrences\": ").append(mItemOccurrences).append(",\n");
+        }
+        res.append("  \"runTimeSeconds\": ").append(seconds(mRunNanos)).append(",\n");
+        res.append("  \"peakHeapBytes\": ").append(peakHeap()).append(",\n");
+
+        long total = 0;
+        int maxSize = 0;
+        for (int size = 1; size < mItemSetsBySize.length; size++){
+            total += mItemSetsBySize[size];
+            if (mItemSetsBySize[size] > 0){
+                maxSize = size;
+            }
+        }
+        res.append("  \"itemSets\": ").append(total).append(",\n");
+        res.append("  \"itemSetsBySize\": [");
+        for (int size = 1; size <= maxSize; size++){
+            res.append(size > 1 ? ", " : "").append(mItemSetsBySize[size]);
+        }
+        res.append("],\n");
+
+        res.append("  \"levels\": [");
+        for (int i = 0; i < mLevels.size(); i++){
+            Level level = mLevels.get(i);
+            res.append(i > 0 ? "," : "").append("\n    {");
+            res.append("\"size\": ").append(level.size);
+            res.append(", \"candidates\": ").append(level.candidates);
+            res.append(", \"subsetPruned\": ").append(level.subsetPruned);
+            res.append(", \"frequent\": ").append(level.frequent);
+            res.append(", \"strategy\": ").append(quote(level.strategy));
+            res.append(", \"scannedTransactions\": ").append(level.scannedTransactions.get());
+            res.append(", \"skippedTransactions\": ").append(level.skippedTransactions.get());
+            res.append(", \"candidateGenerationSeconds\": ").append(seconds(level.generationNanos));
+            res.append(", \"strategySelectionSeconds\": ").append(seconds(level.selectionNanos));
+            res.append(", \"validationSeconds\": ").append(seconds(level.validationNanos));
+            res.append(", \"heapUsedBytes\": ").append(level.heapUsed);
+            res.append("}");
+        }
+        res.append(mLevels.isEmpty() ? "]\n" : "\n  ]\n");
+        res.append("}\n");
+        output.write(res.toString());
+    }
+
+    private static String seconds(long nanos){
+        return String.valueOf(nanos / 1000000000.0);
+    }
+
+    private static String quote(String value){
+        if (value == null){
+            return "null";
+        }
+        StringBuilder res = new StringBuilder("\"");
+        for (char c : value.toCharArray()){
+            if (c == '"' || c == '\\'){
+                res.append('\\').append(c);
+            } else if (c < 0x20){
+                res.append(String.format("\\u%04x", (int) c));
+            } else{
+                res.append(c);
+            }
+        }
+        return res.append('"').toString();
+    }
+}
@@ -0,0 +1,46 @@
+package datamining.apriori;
+
+import java.io.*;
+
+/**
+ * Writes the item sets in the text format of Apriori, one set per line:
+ * "item(support)" for a single item and "item item ... (support)" for larger sets
+ */
+public class TextItemSetWriter implements ItemSetWriter {
+
+    private final Writer mOutput;
+
+    /* The line being formatted, reused between sets */
+    private final StringBuilder mLine = new StringBuilder();
+
+    /**
+     * @param path the path to the output file, replaced if it exists
+     * @throws IOException if the file cannot be created
+     */
+    public TextItemSetWriter(String path) throws IOException {
+        mOutput = new BufferedWriter(new FileWriter(path, false), 1 << 16);
+    }
+
+    @Override
+    public void add(int[] items, int length, int support){
+        mLine.setLength(0);
+        if (length == 1){
+            mLine.append(items[0]);
+        } else{
+            for (int i = 0; i < length; i++){
+                mLine.append(items[i]).append(' ');
+            }
+        }
+        mLine.append('(').append(support).append(")\n");
+        try {
+            mOutput.append(mLine);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mOutput.close();
+    }
+}
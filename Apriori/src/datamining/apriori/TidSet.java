@@ -0,0 +1,120 @@
+package datamining.apriori;
+
+import java.util.Arrays;
+
+/**
+ * A transaction id bitset, only holding the range of words between its first and last set bits
+ * Both ends are always trimmed, so two equal sets of transactions have the same words and offset
+ */
+class TidSet {
+    /* The words [offset, offset + words.length) of the full bitset */
+    final long[] words;
+    final int offset;
+    final int support;
+
+    TidSet(long[] fullWords){
+        int from = 0;
+        int to = fullWords.length;
+        while (from < to && fullWords[from] == 0){
+            from++;
+        }
+        while (to > from && fullWords[to - 1] == 0){
+            to--;
+        }
+        words = Arrays.copyOfRange(fullWords, from, to);
+        offset = from;
+        int count = 0;
+        for (long word : words){
+            count += Long.bitCount(word);
+        }
+        support = count;
+    }
+
+    private TidSet(long[] words, int offset, int support){
+        this.words = words;
+        this.offset = offset;
+        this.support = support;
+    }
+
+    /**
+     * Build the bitset of each item with one pass over the database
+     * @param transactions the encoded database
+     * @param items the ranks of the items in ascending order
+     * @return the bitsets, indexed as {@code items}
+     */
+    static TidSet[] forItems(TransactionStore transactions, int[] items){
+        int words = (transactions.size() + 63) >>> 6;
+
+        // Index of each rank to locate its bitset, the ranks being dense
+        int[] indexOf = new int[transactions.distinctItems()];
+        Arrays.fill(indexOf, -1);
+        for (int i = 0; i < items.length; i++){
+            indexOf[items[i]] = i;
+        }
+
+        long[][] bits = new long[items.length][words];
+        int[] data = transactions.items();
+        for (int tid = 0; tid < transactions.size(); tid++){
+            int from = transactions.offset(tid);
+            for (int i = from; i < from + transactions.length(tid); i++){
+                int item = data[i];
+                if (indexOf[item] >= 0){
+                    bits[indexOf[item]][tid >>> 6] |= 1L << tid;
+                }
+            }
+        }
+
+        TidSet[] tidSets = new TidSet[items.length];
+        for (int i = 0; i < items.length; i++){
+            tidSets[i] = new TidSet(bits[i]);
+            bits[i] = null;
+        }
+        return tidSets;
+    }
+
+    /**
+     * Intersect two bitsets, only over the words both may have set
+     * @param other the other bitset
+     * @param threshold the minimum support of the result
+     * @return the intersection, null if its support is below {@code threshold}
+     */
+    TidSet and(TidSet other, int threshold){
+        int from = Math.max(offset, other.offset);
+        int to = Math.min(offset + words.length, other.offset + other.words.length);
+        if (to <= from || Math.min(support, other.support) < threshold){
+            return null;
+        }
+
+        long[] result = new long[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++){
+            long word = words[i - offset] & other.words[i - other.offset];
+            result[i - from] = word;
+            count += Long.bitCount(word);
+        }
+        if (count < threshold || count == 0){
+            return null;
+        }
+
+        // Trim the empty words at both ends
+        int low = 0;
+        int high = result.length;
+        while (result[low] == 0){
+            low++;
+        }
+        while (result[high - 1] == 0){
+            high--;
+        }
+        if (low > 0 || high < result.length){
+            result = Arrays.copyOfRange(result, low, high);
+        }
+        return new TidSet(result, from + low, count);
+    }
+
+    /**
+     * @return a hash of the transactions, equal for equal sets of transactions
+     */
+    int hash(){
+        return 31 * (31 * offset + support) + Arrays.hashCode(words);
+    }
+}
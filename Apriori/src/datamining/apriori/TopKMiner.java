@@ -0,0 +1,159 @@
+package datamining.apriori;
+
+import java.util.*;
+
+/**
+ * Finds the K most frequent item sets of size 2 or more without a support threshold, on the bitsets of Eclat
+ * The threshold starts at the given floor and is raised to the support of the K-th best set found so far,
+ * so the intersections below it are never computed and the search prunes itself as it goes
+ * Items and extensions are visited by descending support and all extensions of a set are counted before
+ * any is extended further, so the best sets are found first and the threshold rises quickly
+ * Sets tied with the K-th best are all kept, so the result does not depend on the order of the search
+ */
+class TopKMiner {
+
+    /* The number of item sets wanted */
+    private final int mK;
+
+    /* The current threshold, never below the floor given */
+    private int mThreshold;
+
+    /* The frequent items by descending support and their bitsets */
+    private final int[] mItems;
+    private final TidSet[] mTidSets;
+
+    /* The best item sets found so far by support, each holding the items of the set */
+    private final TreeMap<Integer, List<int[]>> mBest = new TreeMap<>();
+    private int mBestCount;
+
+    /**
+     * Build the bitset of every frequent item
+     * @param transactions the encoded database, the sets being reported as ranks
+     * @param frequentItems the ranks of the items having at least {@code floor} support
+     * @param floor the lowest threshold for support frequency
+     * @param k the number of item sets wanted, at least 1
+     */
+    TopKMiner(TransactionStore transactions, List<Integer> frequentItems, int floor, int k){
+        if (k < 1){
+            throw new IllegalArgumentException("The number of item sets must be at least 1: " + k);
+        }
+        mK = k;
+        mThreshold = Math.max(1, floor);
+
+        int[] items = new int[frequentItems.size()];
+        for (int i = 0; i < items.length; i++){
+            items[i] = frequentItems.get(i);
+        }
+        Arrays.sort(items);
+        TidSet[] tidSets = TidSet.forItems(transactions, items);
+
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tidSets[b].support - tidSets[a].support);
+        mItems = new int[items.length];
+        mTidSets = new TidSet[items.length];
+        for (int i = 0; i < order.length; i++){
+            mItems[i] = items[order[i]];
+            mTidSets[i] = tidSets[order[i]];
+        }
+    }
+
+    /**
+     * Mine the K most frequent item sets of size 2 or more
+     * @param sink receives the item sets by descending support once the search is over
+     * @return the final threshold, the support of the K-th best set
+     */
+    int generateFIS(ItemSetSink sink){
+        mBest.clear();
+        mBestCount = 0;
+
+        int[] prefix = new int[mItems.length + 1];
+        List<Integer> items = new ArrayList<>();
+        List<TidSet> tidSets = new ArrayList<>();
+        for (int i = 0; i < mItems.length; i++){
+            items.add(mItems[i]);
+            tidSets.add(mTidSets[i]);
+        }
+        for (int i = 0; i < items.size(); i++){
+            // The items are by descending support, no later item can reach the threshold either
+            if (tidSets.get(i).support < mThreshold){
+                break;
+            }
+            prefix[0] = items.get(i);
+            extend(prefix, 1, tidSets.get(i), items, tidSets, i + 1);
+        }
+
+        int[] sorted = new int[mItems.length];
+        for (Map.Entry<Integer, List<int[]>> entry : mBest.descendingMap().entrySet()){
+            for (int[] set : entry.getValue()){
+                System.arraycopy(set, 0, sorted, 0, set.length);
+                Arrays.sort(sorted, 0, set.length);
+                sink.add(sorted, set.length, entry.getKey());
+            }
+        }
+        return mThreshold;
+    }
+
+    /**
+     * Count every extension of the prefix by a later sibling, then extend the extensions still above the threshold
+     */
+    private void extend(int[] prefix, int length, TidSet prefixTids, List<Integer> items, List<TidSet> tidSets,
+                        int from){
+        List<Integer> nextItems = new ArrayList<>();
+        List<TidSet> nextTidSets = new ArrayList<>();
+        for (int j = from; j < items.size(); j++){
+            TidSet intersection = prefixTids.and(tidSets.get(j), mThreshold);
+            if (intersection != null){
+                prefix[length] = items.get(j);
+                offer(prefix, length + 1, intersection.support);
+                nextItems.add(items.get(j));
+                nextTidSets.add(intersection);
+            }
+        }
+
+        // Best extensions first, and only those still reaching the threshold raised by their siblings
+        Integer[] order = new Integer[nextItems.size()];
+        for (int j = 0; j < order.length; j++){
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> nextTidSets.get(b).support - nextTidSets.get(a).support);
+        List<Integer> sortedItems = new ArrayList<>();
+        List<TidSet> sortedTidSets = new ArrayList<>();
+        for (int j : order){
+            if (nextTidSets.get(j).support >= mThreshold){
+                sortedItems.add(nextItems.get(j));
+                sortedTidSets.add(nextTidSets.get(j));
+            }
+        }
+
+        for (int j = 0; j < sortedItems.size(); j++){
+            TidSet tids = sortedTidSets.get(j);
+            if (tids.support < mThreshold){
+                break;
+            }
+            prefix[length] = sortedItems.get(j);
+            extend(prefix, length + 1, tids, sortedItems, sortedTidSets, j + 1);
+        }
+    }
+
+    /**
+     * Keep the set if it is among the K best so far, raising the threshold once K sets are kept
+     */
+    private void offer(int[] prefix, int length, int support){
+        if (support < mThreshold){
+            return;
+        }
+        mBest.computeIfAbsent(support, s -> new ArrayList<>()).add(Arrays.copyOf(prefix, length));
+        mBestCount++;
+
+        // Drop the least frequent sets as long as K sets remain without them
+        while (mBestCount - mBest.firstEntry().getValue().size() >= mK){
+            mBestCount -= mBest.pollFirstEntry().getValue().size();
+        }
+        if (mBestCount >= mK){
+            mThreshold = Math.max(mThreshold, mBest.firstKey());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package datamining.apriori;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A parser for .dat transaction files working directly on the bytes of the memory mapped file
+ * Items are decoded digit by digit into a reused int buffer, so no String or boxed Integer is created
+ * Follows the same rules as reading with readLine and a StringTokenizer on " ":
+ * lines end with \n, \r or \r\n, items are separated by spaces, an empty line is an empty transaction
+ * and the last line does not need a line break
+ * Items must be non-negative integers
+ */
+class TransactionParser {
+
+    /* Files are mapped in segments of this many bytes, since a single mapping is limited to 2 GB */
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * Receives each transaction as it is parsed
+     */
+    interface Consumer {
+        /**
+         * @param items the buffer holding the items of the transaction, only valid during the call
+         * @param length the number of items at the start of {@code items}
+         */
+        void transaction(int[] items, int length);
+    }
+
+    /* The items of the transaction being parsed */
+    private int[] line = new int[64];
+    private int length;
+
+    /* The item being parsed */
+    private int value;
+    private boolean inNumber;
+
+    /* Whether anything was read since the last line break */
+    private boolean lineStarted;
+    private boolean lastWasCarriageReturn;
+
+    /**
+     * Parse a whole file
+     * @param dataPath the path to the .dat file
+     * @param consumer receives each transaction in order
+     * @throws IOException if the file cannot be read
+     * @throws NumberFormatException if a token is not an integer
+     */
+    void parse(String dataPath, Consumer consumer) throws IOException {
+        parse(dataPath, 0, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Parse the lines starting in a byte range of a file
+     * A line belongs to the range it starts in, so the ranges [0, a), [a, b), ..., [z, size) of a file
+     * produce every transaction exactly once, whatever the boundaries
+     * @param dataPath the path to the .dat file
+     * @param from the first byte of the range
+     * @param to the end of the range, exclusive
+     * @param consumer receives each transaction in order
+     * @throws IOException if the file cannot be read
+     * @throws NumberFormatException if a token is not an integer
+     */
+    void parse(String dataPath, long from, long to, Consumer consumer) throws IOException {
+        length = 0;
+        value = 0;
+        inNumber = false;
+        lineStarted = false;
+        lastWasCarriageReturn = false;
+
+        try (RandomAccessFile file = new RandomAccessFile(dataPath, "r");
+             FileChannel channel = file.getChannel()){
+            long size = channel.size();
+            to = Math.min(to, size);
+
+            // A range starting in the middle of a line skips it, the previous range reads it to its end
+            boolean atLineStart = true;
+            if (from > 0 && from < size){
+                ByteBuffer previous = ByteBuffer.allocate(1);
+                channel.read(previous, from - 1);
+                byte b = previous.get(0);
+                atLineStart = b == '\n' || b == '\r';
+                // The \n of a \r\n ending the previous line is skipped by the parser
+                lastWasCarriageReturn = b == '\r';
+            }
+            boolean skipping = !atLineStart;
+
+            for (long position = from; position < size; position += SEGMENT_SIZE){
+                MappedByteBuffer buffer
+                        = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+                // A token or a line may continue into the next segment, the parser state carries over
+                while (buffer.hasRemaining()){
+                    if (atLineStart && position + buffer.position() >= to){
+                        return;
+                    }
+                    byte b = buffer.get();
+                    atLineStart = b == '\n' || b == '\r';
+                    if (!skipping){
+                        accept(b, consumer);
+                    } else if (atLineStart){
+                        skipping = false;
+                        lastWasCarriageReturn = b == '\r';
+                    }
+                }
+            }
+        }
+
+        if (lineStarted){
+            endLine(consumer);
+        }
+    }
+
+    private void accept(byte b, Consumer consumer){
+        if (b >= '0' && b <= '9'){
+            int digit = b - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10){
+                throw new NumberFormatException("Item out of range in transaction file");
+            }
+            value = value * 10 + digit;
+            inNumber = true;
+            lineStarted = true;
+            lastWasCarriageReturn = false;
+        } else if (b == ' '){
+            endNumber();
+            lineStarted = true;
+            lastWasCarriageReturn = false;
+        } else if (b == '\n'){
+            // The \n of \r\n has already been handled by the \r
+            if (!lastWasCarriageReturn){
+                endLine(consumer);
+            }
+            lastWasCarriageReturn = false;
+        } else if (b == '\r'){
+            endLine(consumer);
+            lastWasCarriageReturn = true;
+        } else{
+            throw new NumberFormatException("Unexpected character '" + (char) b + "' in transaction file");
+        }
+    }
+
+    private void endNumber(){
+        if (inNumber){
+            if (length == line.length){
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = value;
+        }
+        value = 0;
+        inNumber = false;
+    }
+
+    private void endLine(Consumer consumer){
+        endNumber();
+        consumer.transaction(line, length);
+        length = 0;
+        lineStarted = false;
+    }
+}
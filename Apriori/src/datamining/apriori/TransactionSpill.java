@@ -0,0 +1,158 @@
+package datamining.apriori;
+
+import java.io.*;
+
+/**
+ * A temporary binary file of transactions, written once and then read back sequentially
+ * Each transaction is stored as its length followed by its items, all as varints
+ * (7 bits per byte, the high bit set on every byte but the last), so small item ids take a single byte
+ */
+class TransactionSpill implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File mFile;
+
+    /* The stream the spill is written to, null once finished */
+    private OutputStream mOutput;
+    private byte[] mBuffer;
+    private int mPosition;
+
+    /* Number of transactions written */
+    private long mTransactions;
+
+    /**
+     * Create an empty spill file
+     * @param directory the directory holding the file, null for the default temporary directory
+     * @throws IOException if the file cannot be created
+     */
+    TransactionSpill(File directory) throws IOException {
+        mFile = File.createTempFile("apriori", ".spill", directory);
+        mFile.deleteOnExit();
+        mOutput = new FileOutputStream(mFile);
+        mBuffer = new byte[BUFFER_SIZE];
+        mPosition = 0;
+        mTransactions = 0;
+    }
+
+    /**
+     * Append a transaction
+     * @param items the buffer holding the items
+     * @param length the number of items at the start of {@code items}
+     * @throws IOException if writing fails
+     */
+    void write(int[] items, int length) throws IOException {
+        // A varint takes at most 5 bytes
+        if (mPosition + 5 * (length + 1) > mBuffer.length){
+            flush();
+            if (5 * (length + 1) > mBuffer.length){
+                mBuffer = new byte[5 * (length + 1)];
+            }
+        }
+        writeVarint(length);
+        for (int i = 0; i < length; i++){
+            writeVarint(items[i]);
+        }
+        mTransactions++;
+    }
+
+    /**
+     * Stop writing, the spill can then be read
+     * @throws IOException if writing fails
+     */
+    void finish() throws IOException {
+        if (mOutput != null){
+            flush();
+            mOutput.close();
+            mOutput = null;
+        }
+    }
+
+    long transactions(){
+        return mTransactions;
+    }
+
+    /**
+     * Read every transaction back in the order they were written
+     * @param consumer receives each transaction, the buffer being reused between calls
+     * @throws IOException if reading fails
+     */
+    void forEach(TransactionParser.Consumer consumer) throws IOException {
+        finish();
+        try (InputStream input = new FileInputStream(mFile)){
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int[] items = new int[64];
+            int limit = 0;
+            int position = 0;
+
+            // The varint being decoded, which may span two reads
+            int value = 0;
+            int shift = 0;
+
+            // The transaction being decoded, length -1 while its length is not known yet
+            int length = -1;
+            int count = 0;
+
+            while (true){
+                if (position == limit){
+                    limit = input.read(buffer);
+                    position = 0;
+                    if (limit <= 0){
+                        break;
+                    }
+                }
+                byte b = buffer[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) != 0){
+                    shift += 7;
+                    continue;
+                }
+
+                if (length < 0){
+                    length = value;
+                    count = 0;
+                    if (length > items.length){
+                        items = new int[Math.max(length, items.length * 2)];
+                    }
+                } else{
+                    items[count++] = value;
+                }
+                value = 0;
+                shift = 0;
+
+                if (count == length){
+                    consumer.transaction(items, length);
+                    length = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the file
+     */
+    @Override
+    public void close(){
+        try {
+            finish();
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+        if (!mFile.delete()){
+            mFile.deleteOnExit();
+        }
+    }
+
+    private void writeVarint(int value){
+        while ((value & ~0x7F) != 0){
+            mBuffer[mPosition++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mPosition++] = (byte) value;
+    }
+
+    private void flush() throws IOException {
+        mOutput.write(mBuffer, 0, mPosition);
+        mPosition = 0;
+    }
+}
@@ -0,0 +1,226 @@
+package datamining.apriori;
+
+import java.util.Arrays;
+
+/**
+ * A compact store of the transactions in compressed sparse row layout
+ * The items of all transactions are kept back to back in a single int array, the transaction i occupying
+ * [offset(i), offset(i) + length(i)), so no object is allocated per transaction or per item
+ * Transactions are pruned in place: their length only shrinks, and a skipped transaction has a length of 0
+ * Once encoded, each item is replaced by its rank among the distinct items, so arrays indexed by item are sized
+ * by the number of distinct items whatever their values; ranks keep the order of the items
+ */
+class TransactionStore {
+
+    /* The items of all transactions */
+    private int[] items;
+
+    /* The start of each transaction in items */
+    private int[] offsets;
+
+    /* The current length of each transaction */
+    private int[] lengths;
+
+    /* Number of transactions */
+    private int size;
+
+    /* Number of items stored */
+    private int itemCount;
+
+    /* The largest item stored, -1 if none */
+    private int maxItem;
+
+    /* The item of each rank in ascending order, null until encoded */
+    private int[] itemOf;
+
+    /* The number of transactions holding each rank when encoded */
+    private int[] supportOf;
+
+    TransactionStore(){
+        items = new int[1024];
+        offsets = new int[256];
+        lengths = new int[256];
+        size = 0;
+        itemCount = 0;
+        maxItem = -1;
+    }
+
+    /**
+     * Append a transaction
+     * @param transaction the buffer holding the items of the transaction, copied into the store
+     * @param length the number of items at the start of {@code transaction}
+     */
+    void add(int[] transaction, int length){
+        if (size == offsets.length){
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        if (itemCount + length > items.length){
+            items = Arrays.copyOf(items, Math.max(items.length * 2, itemCount + length));
+        }
+        System.arraycopy(transaction, 0, items, itemCount, length);
+        for (int i = 0; i < length; i++){
+            maxItem = Math.max(maxItem, transaction[i]);
+        }
+        offsets[size] = itemCount;
+        lengths[size] = length;
+        itemCount += length;
+        size++;
+    }
+
+    /**
+     * Release the spare capacity once all transactions are added
+     */
+    void trim(){
+        items = Arrays.copyOf(items, itemCount);
+        offsets = Arrays.copyOf(offsets, size);
+        lengths = Arrays.copyOf(lengths, size);
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * @return the array holding the items of all transactions, to be read from offset(line) on
+     */
+    int[] items(){
+        return items;
+    }
+
+    int offset(int line){
+        return offsets[line];
+    }
+
+    int length(int line){
+        return lengths[line];
+    }
+
+    /**
+     * @return the number of items stored when the transactions were added
+     */
+    long itemCount(){
+        return itemCount;
+    }
+
+    /**
+     * @return the largest item stored, the largest rank once encoded
+     */
+    int maxItem(){
+        return maxItem;
+    }
+
+    /**
+     * Replace every item by its rank among the distinct items, keeping the order of the items of each transaction,
+     * and count the support of each rank on the way
+     * Nothing is done if the store is already encoded
+     */
+    void encode(){
+        if (itemOf != null){
+            return;
+        }
+        if (maxItem < itemCount + 1024){
+            // The items are dense enough to rank them with arrays no larger than the items stored
+            boolean[] present = new boolean[maxItem + 1];
+            for (int i = 0; i < itemCount; i++){
+                present[items[i]] = true;
+            }
+            int distinct = 0;
+            for (boolean flag : present){
+                if (flag){
+                    distinct++;
+                }
+            }
+            itemOf = new int[distinct];
+            int[] rankOf = new int[maxItem + 1];
+            int rank = 0;
+            for (int item = 0; item <= maxItem; item++){
+                if (present[item]){
+                    rankOf[item] = rank;
+                    itemOf[rank++] = item;
+                }
+            }
+            supportOf = new int[distinct];
+            for (int i = 0; i < itemCount; i++){
+                items[i] = rankOf[items[i]];
+                supportOf[items[i]]++;
+            }
+        } else{
+            int[] sorted = Arrays.copyOf(items, itemCount);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++){
+                if (distinct == 0 || sorted[distinct - 1] != sorted[i]){
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            itemOf = Arrays.copyOf(sorted, distinct);
+            supportOf = new int[distinct];
+            for (int i = 0; i < itemCount; i++){
+                items[i] = Arrays.binarySearch(itemOf, items[i]);
+                supportOf[items[i]]++;
+            }
+        }
+        maxItem = itemOf.length - 1;
+    }
+
+    /**
+     * @return the number of distinct items, every rank being below it once encoded
+     */
+    int distinctItems(){
+        return itemOf == null ? maxItem + 1 : itemOf.length;
+    }
+
+    /**
+     * @return the number of transactions holding each rank when the store was encoded, indexed by rank
+     */
+    int[] supports(){
+        return supportOf;
+    }
+
+    /**
+     * @param item an item
+     * @return the rank of the item in an encoded store, -1 if the store does not hold it
+     */
+    int rank(int item){
+        int rank = Arrays.binarySearch(itemOf, item);
+        return rank < 0 ? -1 : rank;
+    }
+
+    /**
+     * @param rank the rank of an item in an encoded store
+     * @return the item
+     */
+    int item(int rank){
+        return itemOf == null ? rank : itemOf[rank];
+    }
+
+    /**
+     * Remove in place the items of a transaction that are not in the dictionary, keeping the order of the others
+     * Each transaction only touches its own range, so different transactions can be pruned by different threads
+     * @param line the index of the transaction
+     * @param dictionary flags the items to be kept, indexed by item
+     * @return the new length of the transaction
+     */
+    int retain(int line, boolean[] dictionary){
+        int from = offsets[line];
+        int to = from + lengths[line];
+        int kept = from;
+        for (int i = from; i < to; i++){
+            int item = items[i];
+            if (item >= 0 && item < dictionary.length && dictionary[item]){
+                items[kept++] = item;
+            }
+        }
+        lengths[line] = kept - from;
+        return lengths[line];
+    }
+
+    /**
+     * Skip a transaction from now on
+     * @param line the index of the transaction
+     */
+    void skip(int line){
+        lengths[line] = 0;
+    }
+}
@@ -0,0 +1,240 @@
+package datamining.classifier;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Predict every row of a test file with a trained classifier
+ * The file is read in chunks of lines, which are parsed and predicted in parallel while the next ones are read;
+ * the predictions are written in the order of the input, followed by the accuracy
+ * Each thread counts the correct predictions and the confusion matrix of its own chunks, the counts being merged
+ * once the file is done, and a bounded number of chunks are held in memory whatever the size of the file
+ */
+public class BatchScorer {
+
+    /* Predicts the class of a row, from any thread */
+    private final Function<String[], String> mClassifier;
+
+    /* Number of threads predicting the chunks */
+    private int mThreads = 1;
+
+    /* Number of lines of a chunk */
+    private int mChunkSize = 8192;
+
+    /**
+     * @param classifier predicts the class of a row, called from several threads at once,
+     *                   e.g. bayes::predict or tree::predict
+     */
+    public BatchScorer(Function<String[], String> classifier){
+        mClassifier = classifier;
+    }
+
+    /**
+     * @param threads the number of threads predicting the chunks, the calling thread reading and writing the file
+     */
+    public void setThreads(int threads){
+        mThreads = Math.max(1, threads);
+    }
+
+    public void setChunkSize(int lines){
+        mChunkSize = Math.max(1, lines);
+    }
+
+    /**
+     * Predict every row of the test file, the true class label in its first column, and write the output file:
+     * one prediction per line, then the number of rows tested, of correct and false labels and the accuracy
+     * A row no class was predicted for is written as Result.NONE
+     * Empty lines are skipped
+     * @param testPath the path to the test file
+     * @param outputPath the path to the output file
+     * @return the counts of the predictions
+     * @throws IOException if a file cannot be read or written
+     */
+    public Result score(String testPath, String outputPath) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(mThreads);
+        List<Result> accumulators = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Result> accumulator = ThreadLocal.withInitial(() -> {
+            Result res = new Result();
+            accumulators.add(res);
+            return res;
+        });
+        // The chunks being predicted, oldest first; two per thread keep them busy while one is written
+        ArrayDeque<Future<String[]>> pending = new ArrayDeque<>();
+        int maxPending = 2 * mThreads;
+
+        try (BufferedReader test = new BufferedReader(new InputStreamReader(new FileInputStream(testPath)));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputPath)))){
+            List<String> chunk = new ArrayList<>(mChunkSize);
+            String line;
+            while ((line = test.readLine()) != null){
+                chunk.add(line);
+                if (chunk.size() == mChunkSize){
+                    pending.add(pool.submit(predictChunk(chunk, accumulator)));
+                    chunk = new ArrayList<>(mChunkSize);
+                    if (pending.size() >= maxPending){
+                        write(pending.poll(), out);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()){
+                pending.add(pool.submit(predictChunk(chunk, accumulator)));
+            }
+            while (!pending.isEmpty()){
+                write(pending.poll(), out);
+            }
+
+            // Every chunk is done, so every accumulator is final
+            Result res = new Result();
+            for (Result partial : accumulators){
+                res.merge(partial);
+            }
+            out.write("Number of data tested: " + res.getTested());
+            out.newLine();
+            out.write("Correct Labels generated: " + res.getCorrect());
+            out.newLine();
+            out.write("False labels generated: " + (res.getTested() - res.getCorrect()));
+            out.newLine();
+            out.write("Accuracy: " + res.getAccuracy());
+            out.newLine();
+            return res;
+        } finally {
+            for (Future<String[]> future : pending){
+                future.cancel(true);
+            }
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return the task predicting every line of the chunk into the accumulator of its thread
+     */
+    private Callable<String[]> predictChunk(List<String> chunk, ThreadLocal<Result> accumulator){
+        return () -> {
+            Result counts = accumulator.get();
+            List<String> row = new ArrayList<>();
+            String[] predictions = new String[chunk.size()];
+            int size = 0;
+            for (String line : chunk){
+                row.clear();
+                StringTokenizer tokenizer = new StringTokenizer(line, "\t");
+                while (tokenizer.hasMoreElements()){
+                    row.add(tokenizer.nextToken());
+                }
+                if (row.isEmpty()){
+                    continue;
+                }
+                String prediction = mClassifier.apply(row.toArray(new String[0]));
+                counts.add(row.get(0), prediction);
+                predictions[size++] = prediction;
+            }
+            return size == predictions.length ? predictions : Arrays.copyOf(predictions, size);
+        };
+    }
+
+    /**
+     * Wait for a chunk and write its predictions
+     */
+    private static void write(Future<String[]> chunk, BufferedWriter out) throws IOException {
+        String[] predictions;
+        try {
+            predictions = chunk.get();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while predicting the test file");
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        for (String prediction : predictions){
+            out.write(prediction == null || prediction.isEmpty() ? Result.NONE : prediction);
+            out.newLine();
+        }
+    }
+
+    /**
+     * The number of rows tested and the confusion matrix of the predictions
+     */
+    public static class Result {
+        /* The label of a row no class was predicted for */
+        public static final String NONE = "(none)";
+
+        private long mTested;
+        private long mCorrect;
+
+        /* The number of rows of each true label, then of each predicted label */
+        private Map<String, Map<String, Long>> mConfusion = new HashMap<>();
+
+        void add(String label, String prediction){
+            mTested++;
+            if (label.equals(prediction)){
+                mCorrect++;
+            }
+            if (prediction == null || prediction.isEmpty()){
+                prediction = NONE;
+            }
+            mConfusion.computeIfAbsent(label, l -> new HashMap<>()).merge(prediction, 1L, Long::sum);
+        }
+
+        void merge(Result other){
+            mTested += other.mTested;
+            mCorrect += other.mCorrect;
+            for (Map.Entry<String, Map<String, Long>> row : other.mConfusion.entrySet()){
+                Map<String, Long> counts = mConfusion.computeIfAbsent(row.getKey(), l -> new HashMap<>());
+                for (Map.Entry<String, Long> cell : row.getValue().entrySet()){
+                    counts.merge(cell.getKey(), cell.getValue(), Long::sum);
+                }
+            }
+        }
+
+        public long getTested(){
+            return mTested;
+        }
+
+        public long getCorrect(){
+            return mCorrect;
+        }
+
+        public double getAccuracy(){
+            return mCorrect * 1.0 / mTested;
+        }
+
+        /**
+         * @param label the true label
+         * @param prediction the predicted label, NONE for the rows no class was predicted for
+         * @return the number of rows of the true label predicted as the other one
+         */
+        public long getCount(String label, String prediction){
+            Map<String, Long> counts = mConfusion.get(label);
+            Long count = counts == null ? null : counts.get(prediction);
+            return count == null ? 0 : count;
+        }
+
+        /**
+         * @return the confusion matrix as a tab separated table, a row per true label and a column per prediction
+         */
+        public String confusionMatrix(){
+            SortedSet<String> labels = new TreeSet<>(mConfusion.keySet());
+            SortedSet<String> predictions = new TreeSet<>(labels);
+            for (Map<String, Long> counts : mConfusion.values()){
+                predictions.addAll(counts.keySet());
+            }
+            StringBuilder res = new StringBuilder("actual \\ predicted");
+            for (String prediction : predictions){
+                res.append('\t').append(prediction);
+            }
+            res.append('\n');
+            for (String label : labels){
+                res.append(label);
+                for (String prediction : predictions){
+                    res.append('\t').append(getCount(label, prediction));
+                }
+                res.append('\n');
+            }
+            return res.toString();
+        }
+    }
+}
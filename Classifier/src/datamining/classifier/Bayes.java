@@ -0,0 +1,586 @@
+package datamining.classifier;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A Java implementation of the Naive Bayesian Classifier
+ * Independence is assumed among all features
+ * Rows can be learned and models merged while other threads predict, without retraining
+ */
+public class Bayes {
+    /* The dictionaries of the training data, encoding the rows to be predicted */
+    private EncodedDataset mDictionaries;
+
+    /* The count of each class, indexed by class code */
+    private int[] mClassCounts;
+
+    /* The count of each feature value within each class, indexed by class code, feature and value code */
+    private int[][][] mCounts;
+
+    /* The log probability tables used for prediction, updated in place by the rows learned with known values */
+    private volatile CompiledBayes mModel;
+
+    /* Held to update the counts of known values, or exclusively to add values and replace the tables */
+    private final ReentrantReadWriteLock mLock = new ReentrantReadWriteLock();
+
+    /* The counts of a class are updated holding the stripe of its code */
+    private final Object[] mStripes = stripes(16);
+
+    private static int CLASS = 0;
+
+
+    /**
+     * An empty model, counting the rows added or merged into it
+     */
+    private Bayes(){
+        mDictionaries = new EncodedDataset();
+        mClassCounts = new int[0];
+        mCounts = new int[0][][];
+        mModel = compile();
+    }
+
+    /**
+     * Import the data from file and build the probability dictionary
+     * @param dataPath the path to the data file
+     */
+    public Bayes(String dataPath){
+        this(importDatabase(dataPath));
+    }
+
+    /**
+     * Build the probability dictionary from rows already in memory
+     * @param rows the rows, each holding the class label followed by the features
+     */
+    public Bayes(List<String[]> rows){
+        this(EncodedDataset.of(rows));
+    }
+
+    /**
+     * Counts the frequency of each conditional probabilities and prior
+     * @param data the training data, the class label in its first column
+     */
+    public Bayes(EncodedDataset data){
+        mDictionaries = data.dictionaries();
+        int classes = data.columns() == 0 ? 0 : data.cardinality(CLASS);
+        mClassCounts = new int[classes];
+        mCounts = new int[classes][Math.max(1, data.columns())][];
+        for (int label = 0; label < classes; label++){
+            for (int feature = 1; feature < data.columns(); feature++){
+                mCounts[label][feature] = new int[data.cardinality(feature)];
+            }
+        }
+
+        for (int row = 0; row < data.size(); row++){
+            int label = data.code(row, CLASS);
+            mClassCounts[label]++;
+            for (int feature = 1; feature < data.columns(); feature++){
+                mCounts[label][feature][data.code(row, feature)]++;
+            }
+        }
+        mModel = compile();
+    }
+
+    /**
+     * Train on a file split into one byte range per thread, each range counted into its own model
+     * The models are merged in the order of the file, so the result predicts as new Bayes(dataPath) does
+     * @param dataPath the path to the data file, each token separated by tab
+     * @param threads the number of threads counting the ranges
+     * @return the trained classifier
+     * @throws IOException if the file cannot be read, or a row does not have as many columns as the others
+     */
+    public static Bayes train(String dataPath, int threads) throws IOException {
+        int ranges = Math.max(1, threads);
+        long size = new File(dataPath).length();
+        List<Callable<Bayes>> tasks = new ArrayList<>();
+        for (int i = 0; i < ranges; i++){
+            long from = size * i / ranges;
+            long to = size * (i + 1) / ranges;
+            tasks.add(() -> countRange(dataPath, from, to));
+        }
+
+        List<Bayes> models = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(ranges);
+        try {
+            for (Future<Bayes> future : pool.invokeAll(tasks)){
+                models.add(future.get());
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while counting " + dataPath);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        Bayes res = models.get(0);
+        for (int i = 1; i < models.size(); i++){
+            res.merge(models.get(i));
+        }
+        return res;
+    }
+
+    /**
+     * Count the lines starting in a byte range of the file
+     * A line crossing the start of the range belongs to the range before
+     * @param from the first byte of the range
+     * @param to the byte after the range
+     * @return the model of the range
+     */
+    private static Bayes countRange(String dataPath, long from, long to) throws IOException {
+        Bayes res = new Bayes();
+        try (FileInputStream in = new FileInputStream(dataPath)){
+            // Read from the byte before the range, the line it ends is skipped
+            long position = Math.max(0, from - 1);
+            in.getChannel().position(position);
+            byte[] buffer = new byte[1 << 16];
+            int limit = 0;
+            int offset = 0;
+            boolean skip = from > 0;
+
+            List<String> row = new ArrayList<>();
+            int[] codes = new int[0];
+            while (position < to){
+                // Find the end of the line starting at offset, moving it to the start of the buffer if it is cut
+                int end = offset;
+                while (end < limit && buffer[end] != '\n'){
+                    end++;
+                }
+                if (end == limit){
+                    int length = limit - offset;
+                    if (length == buffer.length){
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    } else{
+                        System.arraycopy(buffer, offset, buffer, 0, length);
+                    }
+                    offset = 0;
+                    limit = length;
+                    int read = in.read(buffer, limit, buffer.length - limit);
+                    if (read > 0){
+                        limit += read;
+                        continue;
+                    }
+                    if (length == 0){
+                        break;
+                    }
+                    // The last line has no line break
+                    end = limit;
+                }
+
+                long start = position;
+                int length = end - offset;
+                position += length + 1;
+                if (skip){
+                    skip = false;
+                } else{
+                    if (length > 0 && buffer[offset + length - 1] == '\r'){
+                        length--;
+                    }
+                    row.clear();
+                    StringTokenizer tokenizer = new StringTokenizer(new String(buffer, offset, length), "\t");
+                    while (tokenizer.hasMoreElements()){
+                        row.add(tokenizer.nextToken());
+                    }
+                    if (!row.isEmpty()){
+                        if (codes.length != row.size()){
+                            codes = new int[row.size()];
+                        }
+                        try {
+                            res.count(row, codes);
+                        } catch (IllegalArgumentException e){
+                            throw new IOException(dataPath + ", byte " + start + ": " + e.getMessage());
+                        }
+                    }
+                }
+                offset = end + 1;
+            }
+        }
+        res.mModel = res.compile();
+        return res;
+    }
+
+    /**
+     * Count a row, adding its new values to the dictionaries
+     * The prediction tables are not updated
+     * @param row the class label followed by the features
+     * @param codes receives the code of each column
+     * @throws IllegalArgumentException if the row does not have as many columns as the rows counted before
+     */
+    private void count(List<String> row, int[] codes){
+        if (mDictionaries.columns() == 0){
+            mDictionaries = new EncodedDataset(row.size());
+        }
+        if (row.size() != mDictionaries.columns()){
+            throw new IllegalArgumentException("Expected " + mDictionaries.columns() + " columns, found " + row.size());
+        }
+        for (int column = 0; column < codes.length; column++){
+            codes[column] = mDictionaries.define(column, row.get(column));
+        }
+        int label = codes[CLASS];
+        addClass(label);
+        mClassCounts[label]++;
+        for (int feature = 1; feature < codes.length; feature++){
+            int[] counts = grow(mCounts[label], feature, codes[feature]);
+            counts[codes[feature]]++;
+        }
+    }
+
+    /**
+     * Learn a labeled row, updating the counts and the prediction tables without retraining
+     * @param row the class label followed by the features
+     * @throws IllegalArgumentException if the row does not have as many columns as the rows learned before
+     */
+    public void learn(String[] row){
+        learn(Collections.singletonList(row));
+    }
+
+    /**
+     * Learn a batch of labeled rows, updating the counts and the prediction tables without retraining
+     * The rows whose values are all known only update their counts and the logs of those counts, other threads
+     * learning and predicting meanwhile; the rows with a new class or value are counted together once the others
+     * are done, the tables being then rebuilt once, while predictions continue on the previous ones
+     * @param rows the rows, each holding the class label followed by the features
+     * @throws IllegalArgumentException if a row does not have as many columns as the rows learned before, or as
+     *                                  the first row of the batch if none was, no row of the batch being learned
+     */
+    public void learn(List<String[]> rows){
+        List<List<String>> unknown = new ArrayList<>();
+        mLock.readLock().lock();
+        try {
+            int columns = mDictionaries.columns() == 0 && !rows.isEmpty() ? rows.get(0).length : mDictionaries.columns();
+            for (String[] row : rows){
+                if (row.length != columns){
+                    throw new IllegalArgumentException("Expected " + columns + " columns, found " + row.length);
+                }
+            }
+            CompiledBayes model = mModel;
+            int[] codes = new int[model.columns()];
+            for (String[] row : rows){
+                List<String> values = Arrays.asList(row);
+                if (!learnKnown(model, values, codes)){
+                    unknown.add(values);
+                }
+            }
+        } finally {
+            mLock.readLock().unlock();
+        }
+
+        if (!unknown.isEmpty()){
+            mLock.writeLock().lock();
+            try {
+                for (List<String> values : unknown){
+                    count(values, new int[values.size()]);
+                }
+            } finally {
+                mModel = compile();
+                mLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Count a row whose class and values are all in the tables, holding the read lock
+     * @param model the current tables, updated with the new counts
+     * @param codes receives the code of each column
+     * @return false if the row has a new value, or a value the counts of its class have no room for yet
+     */
+    private boolean learnKnown(CompiledBayes model, List<String> row, int[] codes){
+        if (row.size() != model.columns()){
+            return false;
+        }
+        model.encode(row, codes);
+        int label = codes[CLASS];
+        if (label < 0){
+            return false;
+        }
+        for (int feature = 1; feature < codes.length; feature++){
+            if (codes[feature] < 0 || codes[feature] >= mCounts[label][feature].length){
+                return false;
+            }
+        }
+        synchronized (mStripes[label % mStripes.length]){
+            model.setClassCount(label, ++mClassCounts[label]);
+            for (int feature = 1; feature < codes.length; feature++){
+                model.setCount(label, feature, codes[feature], ++mCounts[label][feature][codes[feature]]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the counts of another model to this one, as if this model had also been trained on the rows of the other
+     * The values are matched by their string, whatever their codes in each model; values and classes new to this
+     * model are added to its dictionaries
+     * @param other a model trained on rows with the same number of columns
+     * @throws IllegalArgumentException if the rows of the models do not have the same number of columns
+     */
+    public void merge(Bayes other){
+        // Copy the other model first, so two models merged into each other at once do not wait for each other
+        EncodedDataset dictionaries;
+        int[] classCounts;
+        int[][][] otherCounts;
+        other.mLock.readLock().lock();
+        try {
+            dictionaries = other.mDictionaries.dictionaries();
+            classCounts = other.mClassCounts.clone();
+            otherCounts = new int[other.mCounts.length][][];
+            for (int label = 0; label < otherCounts.length; label++){
+                otherCounts[label] = other.mCounts[label].clone();
+                for (int feature = 1; feature < otherCounts[label].length; feature++){
+                    otherCounts[label][feature] = otherCounts[label][feature].clone();
+                }
+            }
+        } finally {
+            other.mLock.readLock().unlock();
+        }
+        if (dictionaries.columns() == 0){
+            return;
+        }
+
+        mLock.writeLock().lock();
+        try {
+            merge(dictionaries, classCounts, otherCounts);
+        } finally {
+            mModel = compile();
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add the counts of another model, holding the write lock
+     */
+    private void merge(EncodedDataset dictionaries, int[] classCounts, int[][][] otherCounts){
+        if (mDictionaries.columns() == 0){
+            mDictionaries = new EncodedDataset(dictionaries.columns());
+        }
+        if (dictionaries.columns() != mDictionaries.columns()){
+            throw new IllegalArgumentException("Expected " + mDictionaries.columns() + " columns, found "
+                    + dictionaries.columns());
+        }
+
+        // The code in this model of each code of the other
+        int[][] codes = new int[dictionaries.columns()][];
+        for (int column = 0; column < codes.length; column++){
+            codes[column] = new int[dictionaries.cardinality(column)];
+            for (int code = 0; code < codes[column].length; code++){
+                codes[column][code] = mDictionaries.define(column, dictionaries.value(column, code));
+            }
+        }
+
+        for (int otherLabel = 0; otherLabel < classCounts.length; otherLabel++){
+            int label = codes[CLASS][otherLabel];
+            addClass(label);
+            mClassCounts[label] += classCounts[otherLabel];
+            for (int feature = 1; feature < codes.length; feature++){
+                int[] from = otherCounts[otherLabel][feature];
+                for (int code = 0; code < Math.min(from.length, codes[feature].length); code++){
+                    if (from[code] != 0){
+                        grow(mCounts[label], feature, codes[feature][code])[codes[feature][code]] += from[code];
+                    }
+                }
+            }
+        }
+    }
+
+    private static Object[] stripes(int count){
+        Object[] res = new Object[count];
+        for (int i = 0; i < count; i++){
+            res[i] = new Object();
+        }
+        return res;
+    }
+
+    /**
+     * Make room for the counts of a class code
+     */
+    private void addClass(int label){
+        if (label < mClassCounts.length){
+            return;
+        }
+        int classes = mClassCounts.length;
+        mClassCounts = Arrays.copyOf(mClassCounts, label + 1);
+        mCounts = Arrays.copyOf(mCounts, label + 1);
+        for (int i = classes; i <= label; i++){
+            mCounts[i] = new int[mDictionaries.columns()][];
+            for (int feature = 1; feature < mDictionaries.columns(); feature++){
+                mCounts[i][feature] = new int[mDictionaries.cardinality(feature)];
+            }
+        }
+    }
+
+    /**
+     * Make room for the count of a value code within the counts of a class, doubling them when they are full
+     * @return the counts of the feature
+     */
+    private static int[] grow(int[][] counts, int feature, int code){
+        if (code >= counts[feature].length){
+            counts[feature] = Arrays.copyOf(counts[feature], Math.max(code + 1, counts[feature].length * 2));
+        }
+        return counts[feature];
+    }
+
+    /**
+     * Precompute the log of the priors and conditional probabilities from the counts
+     * @return the model scoring encoded rows without allocating, not updated by the rows learned afterwards
+     */
+    public CompiledBayes compile(){
+        mLock.readLock().lock();
+        try {
+            return new CompiledBayes(mDictionaries.dictionaries(), mClassCounts, mCounts);
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the snapshot of the model, loaded back by load
+     * After the dictionaries: the number of classes, the count of each class, then for each class and each feature
+     * the count of each value of the feature
+     * The rows are not learned while the snapshot is written, predictions continue
+     * @param modelPath the path to the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void save(String modelPath) throws IOException {
+        mLock.writeLock().lock();
+        try (DataOutputStream out = ModelFile.create(modelPath, ModelFile.BAYES)){
+            ModelFile.writeDictionaries(out, mDictionaries);
+            out.writeInt(mClassCounts.length);
+            ModelFile.writeInts(out, mClassCounts, mClassCounts.length);
+            for (int[][] counts : mCounts){
+                for (int feature = 1; feature < mDictionaries.columns(); feature++){
+                    ModelFile.writeInts(out, counts[feature], mDictionaries.cardinality(feature));
+                }
+            }
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load a model written by save, ready to predict, learn and merge
+     * @param modelPath the path to the snapshot
+     * @return the model
+     * @throws IOException if the snapshot cannot be read, is not a naive Bayes snapshot of this version or is truncated
+     */
+    public static Bayes load(String modelPath) throws IOException {
+        ByteBuffer in = ModelFile.open(modelPath, ModelFile.BAYES);
+        Bayes res = new Bayes();
+        EncodedDataset dictionaries = ModelFile.readDictionaries(in);
+        int[] classCounts = ModelFile.readInts(in, ModelFile.readInts(in, 1)[0]);
+        if (classCounts.length != (dictionaries.columns() == 0 ? 0 : dictionaries.cardinality(CLASS))){
+            throw new IOException(modelPath + ": the number of classes does not match the dictionaries");
+        }
+        int[][][] counts = new int[classCounts.length][dictionaries.columns()][];
+        for (int label = 0; label < classCounts.length; label++){
+            for (int feature = 1; feature < dictionaries.columns(); feature++){
+                counts[label][feature] = ModelFile.readInts(in, dictionaries.cardinality(feature));
+            }
+        }
+        res.mDictionaries = dictionaries;
+        res.mClassCounts = classCounts;
+        res.mCounts = counts;
+        res.mModel = res.compile();
+        return res;
+    }
+
+    /**
+     * Assume each token is separated by tab
+     * @param dataPath the path to mDataBase File
+     * @return the training data, empty if the file could not be read
+     */
+    private static EncodedDataset importDatabase(String dataPath){
+        try {
+            return EncodedDataset.read(dataPath);
+        } catch (IOException e){
+            e.printStackTrace();
+            return new EncodedDataset();
+        }
+    }
+
+    /**
+     * Test the test data set and write the output, then print the confusion matrix
+     * @param testPath the path to the test data file
+     * @param outputPath the path to the output file
+     * @param threads the number of threads predicting the rows
+     */
+    private void test(String testPath, String outputPath, int threads){
+        BatchScorer scorer = new BatchScorer(this::predict);
+        scorer.setThreads(threads);
+        try {
+            BatchScorer.Result result = scorer.score(testPath, outputPath);
+            System.out.print(result.confusionMatrix());
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Predict the class of a row using Bayes Theorem
+     * @param row the row in the layout of the data file, the class label in its first column is not read
+     * @return the predicted class
+     */
+    public String predict(String[] row){
+        return predict(Arrays.asList(row));
+    }
+
+    /**
+     * Predict the class based on features using Bayes Theorem
+     * @param features Features of the entity to be predicted
+     * @return A string represents the prediction
+     */
+    private String predict(List<String> features){
+        int[] codes = new int[features.size()];
+        CompiledBayes model = mModel;
+        model.encode(features, codes);
+        int label = model.predict(codes);
+        return label < 0 ? "" : model.label(label);
+    }
+
+    /**
+     * Main Function to be executed
+     * @param args Has the following structure:
+     *             1st argument: path to training data, or to a model snapshot
+     *             2nd argument: path to test data
+     *             3rd argument: path to output
+     *             optionally followed by --threads [number of threads training and predicting]
+     *             and --save [path to the snapshot of the trained model]
+     */
+    public static void main(String[] args){
+        int threads = 1;
+        String modelPath = null;
+        for (int i = 3; i < args.length; i++){
+            if (args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--save") && i + 1 < args.length){
+                modelPath = args[++i];
+            } else{
+                System.out.println("Unknown argument: " + args[i]);
+                return;
+            }
+        }
+        Bayes classifier;
+        try {
+            if (ModelFile.isModel(args[0])){
+                classifier = load(args[0]);
+            } else if (threads > 1){
+                classifier = train(args[0], threads);
+            } else{
+                classifier = new Bayes(args[0]);
+            }
+            if (modelPath != null){
+                classifier.save(modelPath);
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        classifier.test(args[1], args[2], threads);
+    }
+}
\ No newline at end of file
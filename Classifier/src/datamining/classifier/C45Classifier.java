@@ -0,0 +1,483 @@
+package datamining.classifier;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ *  An implementation of the C4.5 Classifier
+ *  The first column in database is assumed to be the class label
+ *  The tree is built on the dictionary encoded training data, counting the values of each feature per class
+ *  in arrays indexed by code
+ */
+
+public class C45Classifier {
+    private EncodedDataset mData;
+    private Node root;
+
+    /* Whether the construction of the tree is printed */
+    private boolean mVerbose;
+
+    private static final int CLASS = 0;
+
+    /**
+     * Import the data form file and build the decision tree using gain ratio as evaluation
+     * The construction of the tree is printed
+     * @param dataBase the path to the training data file
+     */
+    public C45Classifier(String dataBase){
+        importDatabase(dataBase);
+        mVerbose = true;
+        buildTree();
+    }
+
+    /**
+     * Build the decision tree from rows already in memory, without printing
+     * @param rows the rows, each holding the class label followed by the features
+     */
+    public C45Classifier(List<String[]> rows){
+        this(EncodedDataset.of(rows));
+    }
+
+    /**
+     * Build the decision tree from encoded training data, without printing
+     * @param data the training data, the class label in its first column
+     */
+    public C45Classifier(EncodedDataset data){
+        mData = data;
+        buildTree();
+    }
+
+    /**
+     * A classifier whose dictionaries and tree are set by load
+     */
+    private C45Classifier(){
+    }
+
+    /**
+     * Build the decision tree iteratively using gain ratio as evaluation
+     * Only the dictionaries of the training data are kept once the tree is built
+     */
+    private void buildTree(){
+        if (mData.size() == 0){
+            mData = mData.dictionaries();
+            return;
+        }
+        List<Node> queue = new LinkedList<>();
+
+        // Build the first node
+        int[] initialIndex = new int[mData.size()];
+        List<Integer> initialAttribute = new ArrayList<>();
+        for (int i = 0; i < initialIndex.length; i++){
+            initialIndex[i] = i;
+        }
+        for (int i = 1; i < mData.columns(); i++){
+            initialAttribute.add(i);
+        }
+        if (mVerbose){
+            System.out.println(initialAttribute);
+        }
+        root = new Node(initialAttribute, initialIndex);
+        queue.add(root);
+
+        // Build the tree iteratively
+        while (!queue.isEmpty()){
+            List<Node> newQueue = new LinkedList<>();
+            for (Node node: queue){
+                // Check for termination
+
+                if (isHomogeneous(node.mDataIndex)){
+
+                    // Check if all data are in same class
+                    node.registerDecision(mData.value(CLASS, mData.code(node.mDataIndex[0], CLASS)));
+                    if (mVerbose){
+                        System.out.print("Reached Leaf with decision: " + node.mDecision + ";");
+                    }
+                } else if (node.mAttributes.isEmpty()){
+
+                    // Running out of attributes, majority voting
+                    int[] counts = node.classCounts(node.mDataIndex);
+                    int max = 0;
+                    for (int label = 1; label < counts.length; label++){
+                        if (counts[label] > counts[max]){
+                            max = label;
+                        }
+                    }
+                    node.registerDecision(mData.value(CLASS, max));
+                    if (mVerbose){
+                        System.out.print("Majority voted and chose: " + node.mDecision + ";");
+                    }
+                } else{
+
+                    // Continue building the tree
+                    double maxGainRatio = -1;
+                    int attribute = -1;
+                    for (int feature : node.mAttributes){
+                        double ratio = node.getGainRatio(feature);
+                        if (ratio > maxGainRatio){
+                            attribute = feature;
+                            maxGainRatio = ratio;
+                        }
+                    }
+
+                    newQueue.addAll(node.partitionBasedOnFeature(attribute));
+                    if (mVerbose){
+                        System.out.print("Partitioned based on " + attribute + ";");
+                    }
+                }
+                // The rows are only needed until the children are built
+                node.mDataIndex = null;
+            }
+            queue = newQueue;
+            if (mVerbose){
+                System.out.println("");
+            }
+        }
+        mData = mData.dictionaries();
+    }
+
+    /**
+     * Utility function to test if a partition has the same label
+     * @param dataIndex the rows of the partition to be tested
+     * @return the result of such test
+     */
+    private boolean isHomogeneous(int[] dataIndex){
+        int label = mData.code(dataIndex[0], CLASS);
+        for (int i : dataIndex){
+            if (mData.code(i, CLASS) != label){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse Database into the encoded training data
+     * Assume each token is separated by tab
+     * @param dataPath the path to mDataBase File
+     */
+    private void importDatabase(String dataPath){
+        try {
+            mData = EncodedDataset.read(dataPath);
+        } catch (IOException e){
+            e.printStackTrace();
+            mData = new EncodedDataset();
+        }
+    }
+
+    /**
+     * Write the snapshot of the tree, loaded back by load
+     * After the dictionaries: the number of nodes, then the nodes in depth first order, each as two ints:
+     * a leaf as 0 and the code of its class, a node partitioned on a feature as the feature and its number of
+     * children, which follow it, and a child without rows as -1 and 0
+     * @param modelPath the path to the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void save(String modelPath) throws IOException {
+        try (DataOutputStream out = ModelFile.create(modelPath, ModelFile.C45)){
+            ModelFile.writeDictionaries(out, mData);
+            out.writeInt(root == null ? 0 : countNodes(root));
+            if (root != null){
+                writeNode(out, root);
+            }
+        }
+    }
+
+    /**
+     * @return the number of nodes of the subtree, the children without rows included
+     */
+    private static int countNodes(Node node){
+        int res = 1;
+        if (node != null && node.mDecision == null){
+            for (Node child : node.children){
+                res += countNodes(child);
+            }
+        }
+        return res;
+    }
+
+    private void writeNode(DataOutputStream out, Node node) throws IOException {
+        if (node == null){
+            out.writeInt(-1);
+            out.writeInt(0);
+        } else if (node.mDecision != null){
+            out.writeInt(CLASS);
+            out.writeInt(mData.codeOf(CLASS, node.mDecision));
+        } else{
+            out.writeInt(node.mFeature);
+            out.writeInt(node.children.length);
+            for (Node child : node.children){
+                writeNode(out, child);
+            }
+        }
+    }
+
+    /**
+     * Load a tree written by save, ready to predict
+     * @param modelPath the path to the snapshot
+     * @return the classifier
+     * @throws IOException if the snapshot cannot be read, is not a C4.5 snapshot of this version or is corrupt
+     */
+    public static C45Classifier load(String modelPath) throws IOException {
+        ByteBuffer in = ModelFile.open(modelPath, ModelFile.C45);
+        C45Classifier res = new C45Classifier();
+        res.mData = ModelFile.readDictionaries(in);
+        int size = ModelFile.readInts(in, 1)[0];
+        int[] nodes = ModelFile.readInts(in, size * 2);
+        if (size > 0){
+            int[] next = {0};
+            res.root = res.readNode(nodes, next);
+            if (next[0] != nodes.length){
+                throw new IOException(modelPath + ": the tree does not match its number of nodes");
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Rebuild the node at next[0] and its children, moving next[0] past them
+     * @return the node, null for a child without rows
+     */
+    private Node readNode(int[] nodes, int[] next) throws IOException {
+        if (next[0] + 2 > nodes.length){
+            throw new IOException("The tree of the model snapshot is truncated");
+        }
+        int feature = nodes[next[0]];
+        int value = nodes[next[0] + 1];
+        next[0] += 2;
+        if (feature < 0){
+            return null;
+        }
+        if (feature >= mData.columns() || value < 0
+                || value >= (feature == CLASS ? mData.cardinality(CLASS) : nodes.length)){
+            throw new IOException("The tree of the model snapshot is corrupt");
+        }
+        Node node = new Node();
+        if (feature == CLASS){
+            node.registerDecision(mData.value(CLASS, value));
+        } else{
+            node.mFeature = feature;
+            node.children = new Node[value];
+            for (int code = 0; code < value; code++){
+                node.children[code] = readNode(nodes, next);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Test the test data set and write the output, then print the confusion matrix
+     * @param testPath the path to the test data file
+     * @param outputPath the path to the output file
+     * @param threads the number of threads predicting the rows
+     */
+    private void test(String testPath, String outputPath, int threads){
+        BatchScorer scorer = new BatchScorer(this::predict);
+        scorer.setThreads(threads);
+        try {
+            BatchScorer.Result result = scorer.score(testPath, outputPath);
+            System.out.print(result.confusionMatrix());
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Traverse the decision tree to predict the label of a row
+     * @param row the row in the layout of the data file, the class label in its first column is not read
+     * @return The string representing the predicted class, null if the row holds a value the tree has no branch for
+     */
+    public String predict(String[] row){
+        return predict(Arrays.asList(row));
+    }
+
+    /**
+     * Traverse the decision tree to predict the label
+     * @param data A list containing all the attributes
+     * @return The string representing the predicted class, null if the row holds a value the tree has no branch for
+     */
+    private String predict(List<String> data){
+        Node pointer = root;
+        while (pointer != null && pointer.mDecision == null){
+            int code = pointer.mFeature < data.size() ? mData.codeOf(pointer.mFeature, data.get(pointer.mFeature)) : -1;
+            pointer = code >= 0 && code < pointer.children.length ? pointer.children[code] : null;
+        }
+        return pointer == null ? null : pointer.mDecision;
+    }
+
+    /**
+     * Main Function to be executed
+     * @param args Has the following structure:
+     *             1st argument: path to training data, or to a model snapshot
+     *             2nd argument: path to test data
+     *             3rd argument: path to output
+     *             optionally followed by --threads [number of threads predicting the test data]
+     *             and --save [path to the snapshot of the tree]
+     */
+    public static void main(String[] args){
+        int threads = 1;
+        String modelPath = null;
+        for (int i = 3; i < args.length; i++){
+            if (args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--save") && i + 1 < args.length){
+                modelPath = args[++i];
+            } else{
+                System.out.println("Unknown argument: " + args[i]);
+                return;
+            }
+        }
+        C45Classifier classifier;
+        try {
+            classifier = ModelFile.isModel(args[0]) ? load(args[0]) : new C45Classifier(args[0]);
+            if (modelPath != null){
+                classifier.save(modelPath);
+            }
+        } catch (IOException e){
+            e.printStackTrace();
+            return;
+        }
+        classifier.test(args[1], args[2], threads);
+    }
+
+    /**
+     * A utility container class represent each node in Decision Tree
+     */
+    class Node{
+        /* The child of each value code of mFeature, null for the values without rows */
+        Node[] children;
+        int[] mDataIndex;
+        int mFeature;
+        String mDecision = null;
+        List<Integer> mAttributes;
+
+        /**
+         * A node whose decision or children are set by load
+         */
+        Node(){
+        }
+
+        Node(List<Integer> attributes, int[] dataIndex){
+            this.mDataIndex = dataIndex;
+            this.mAttributes = new ArrayList<>(attributes);
+        }
+
+        /**
+         * Compute the gain ratio based on the following definition:
+         * Gain Ratio(A, P) = (Info(A) - Info(A, P)) / SplitInfo(A, P)
+         * @param feature The index of feature to be partition based upon
+         * @return the Gain Ratio of such partition
+         */
+        double getGainRatio(int feature){
+            // The entropy of original data
+            int N = mDataIndex.length;
+            double entropy = computeEntropy(classCounts(mDataIndex), N);
+
+            // The class counts of each value of the feature
+            int classes = mData.cardinality(CLASS);
+            int[][] counts = new int[mData.cardinality(feature)][classes];
+            int[] sizes = new int[counts.length];
+            for (int index : mDataIndex){
+                int value = mData.code(index, feature);
+                counts[value][mData.code(index, CLASS)]++;
+                sizes[value]++;
+            }
+
+            double partitionEntropy = 0;
+            double splitInfo = 0;
+
+            for (int value = 0; value < counts.length; value++){
+                if (sizes[value] == 0){
+                    continue;
+                }
+                double weight = sizes[value] * 1.0 / N;
+                partitionEntropy += weight * computeEntropy(counts[value], sizes[value]);
+                splitInfo += weight * logOf2(weight);
+            }
+
+            splitInfo *= -1;
+            return (entropy - partitionEntropy) / splitInfo;
+        }
+
+        /**
+         * @param dataIndex the rows to be counted
+         * @return the number of rows of each class, indexed by class code
+         */
+        int[] classCounts(int[] dataIndex){
+            int[] counts = new int[mData.cardinality(CLASS)];
+            for (int i : dataIndex){
+                counts[mData.code(i, CLASS)]++;
+            }
+            return counts;
+        }
+
+        /**
+         * Compute the Information Entropy of selected data based on the following definition
+         * info(A) = -1 * sigma(pi * log2(pi))
+         * @param counts the number of rows of each class
+         * @param N the number of rows
+         * @return the Entropy of partitioned data
+         */
+        double computeEntropy(int[] counts, int N){
+            // Compute the data entropy
+            double entropy = 0;
+            for (int count : counts){
+                if (count > 0){
+                    double probability = count * 1.0 / N;
+                    entropy += probability * logOf2(probability);
+                }
+            }
+
+            return entropy * -1;
+        }
+
+        double logOf2(double a){
+            return Math.log(a) / Math.log(2);
+        }
+
+        /**
+         * Build the children nodes based on {@code feature}
+         * Also register such decision in mFeature
+         * @param feature The index of feature to be partition based upon
+         * @return A list of children for the current Node
+         */
+        List<Node> partitionBasedOnFeature(int feature){
+            this.mFeature = feature;
+
+            // Build the list of attributes
+            List<Integer> newAttributes = new ArrayList<>(mAttributes);
+            newAttributes.remove(Integer.valueOf(feature));
+
+            // Partition the rows by the code of their value, keeping their order
+            int[] sizes = new int[mData.cardinality(feature)];
+            for (int index : mDataIndex){
+                sizes[mData.code(index, feature)]++;
+            }
+            int[][] partitions = new int[sizes.length][];
+            for (int value = 0; value < sizes.length; value++){
+                partitions[value] = new int[sizes[value]];
+                sizes[value] = 0;
+            }
+            for (int index : mDataIndex){
+                int value = mData.code(index, feature);
+                partitions[value][sizes[value]++] = index;
+            }
+
+            // Build children
+            children = new Node[partitions.length];
+            List<Node> res = new ArrayList<>();
+            for (int value = 0; value < partitions.length; value++){
+                if (partitions[value].length > 0){
+                    children[value] = new Node(newAttributes, partitions[value]);
+                    res.add(children[value]);
+                }
+            }
+            return res;
+        }
+
+        void registerDecision(String decision){
+            mDecision = decision;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package datamining.classifier;
+
+import java.util.List;
+
+/**
+ * The scoring form of a trained naive Bayes classifier
+ * The log of every count is computed once, the counts of a class being laid out in a single array by feature then
+ * value code, so scoring an encoded row is a loop of array reads and additions that allocates nothing
+ * The log likelihood of a value is the log of its count minus the log of the count of the class, the latter being
+ * summed once per row, so learning a row only changes the logs of the counts it adds to
+ * Working in log space, wide rows no longer underflow to a probability of 0; a value never seen with a class
+ * still rules the class out, as in the counting model
+ */
+public class CompiledBayes {
+
+    /* The dictionaries of the training data, encoding the rows to be predicted */
+    private final EncodedDataset mDictionaries;
+
+    /* The log of the count of each class, indexed by class code */
+    private final double[] mLogClassCounts;
+
+    /* The log counts of each class, feature f and value code v at mOffsets[f] + v */
+    private final double[][] mLogCounts;
+
+    /* The start of each feature in the counts of a class, the class label column having none */
+    private final int[] mOffsets;
+
+    /**
+     * @param dictionaries the dictionaries of the training data, not modified afterwards
+     * @param classCounts the count of each class
+     * @param counts the count of each feature value within each class, indexed by class code, feature and value code
+     */
+    CompiledBayes(EncodedDataset dictionaries, int[] classCounts, int[][][] counts){
+        mDictionaries = dictionaries;
+        int columns = dictionaries.columns();
+        mOffsets = new int[Math.max(1, columns)];
+        int width = 0;
+        for (int feature = 1; feature < columns; feature++){
+            mOffsets[feature] = width;
+            width += dictionaries.cardinality(feature);
+        }
+
+        mLogClassCounts = new double[classCounts.length];
+        mLogCounts = new double[classCounts.length][width];
+        for (int label = 0; label < classCounts.length; label++){
+            mLogClassCounts[label] = Math.log(classCounts[label]);
+            for (int feature = 1; feature < columns; feature++){
+                // The counts of a class may stop before the last values of the feature, or have spare room after it
+                int[] values = counts[label][feature];
+                for (int value = 0; value < dictionaries.cardinality(feature); value++){
+                    // log(0) is negative infinity, which rules the class out
+                    mLogCounts[label][mOffsets[feature] + value] = Math.log(value < values.length ? values[value] : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the count of a class, known to these tables
+     */
+    void setClassCount(int label, int count){
+        mLogClassCounts[label] = Math.log(count);
+    }
+
+    /**
+     * Set the count of a value within a class, both known to these tables
+     */
+    void setCount(int label, int feature, int code, int count){
+        mLogCounts[label][mOffsets[feature] + code] = Math.log(count);
+    }
+
+    /**
+     * Encode a row with the dictionaries of the training data
+     * @param row the row in the layout of the data file, the class label in its first column is not read
+     * @param codes receives the code of each column, -1 for a value never seen in its column
+     */
+    public void encode(List<String> row, int[] codes){
+        mDictionaries.encode(row, codes);
+    }
+
+    /**
+     * @return the number of columns of the encoded rows, the class label included
+     */
+    public int columns(){
+        return mDictionaries.columns();
+    }
+
+    /**
+     * Predict the class of an encoded row, the class with the largest sum of the log prior and log likelihoods
+     * The log of the number of rows, common to every prior, is left out
+     * @param codes the codes of the row, as filled by encode; the code of the class label is not read
+     * @return the class code, -1 if every class is ruled out
+     */
+    public int predict(int[] codes){
+        int res = -1;
+        double best = Double.NEGATIVE_INFINITY;
+        for (int label = 0; label < mLogClassCounts.length; label++){
+            double[] logCounts = mLogCounts[label];
+            // The log prior, then the log of the class count taken from each of the likelihoods
+            double score = mLogClassCounts[label] * (2 - codes.length);
+            for (int feature = 1; feature < codes.length && score > Double.NEGATIVE_INFINITY; feature++){
+                int code = codes[feature];
+                if (code < 0 || feature >= mOffsets.length){
+                    // A value never seen, or a column the training data did not have
+                    score = Double.NEGATIVE_INFINITY;
+                } else{
+                    score += logCounts[mOffsets[feature] + code];
+                }
+            }
+            if (score > best){
+                res = label;
+                best = score;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @param label a class code returned by predict
+     * @return the class label
+     */
+    public String label(int label){
+        return mDictionaries.value(0, label);
+    }
+}
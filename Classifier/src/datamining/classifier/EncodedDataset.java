@@ -0,0 +1,272 @@
+package datamining.classifier;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A table of categorical values stored by column, each value replaced by its code in the dictionary of its column
+ * A column holds one byte per row while it has at most 256 distinct values, then two bytes up to 65536 values,
+ * then an int; a string is only kept once per distinct value of a column
+ * The first column is the class label, the features follow
+ */
+public class EncodedDataset {
+
+    /* The codes of each column */
+    private Column[] mColumns;
+
+    /* The distinct values of each column, indexed by code, and the code of each value */
+    private List<List<String>> mValues = new ArrayList<>();
+    private List<Map<String, Integer>> mCodes = new ArrayList<>();
+
+    /* Number of rows */
+    private int mSize;
+
+    /**
+     * An empty dataset whose number of columns is set by the first row added
+     */
+    public EncodedDataset(){
+        mColumns = new Column[0];
+    }
+
+    /**
+     * An empty dataset with empty dictionaries
+     * @param columns the number of columns, the class label included
+     */
+    public EncodedDataset(int columns){
+        mColumns = new Column[columns];
+        for (int column = 0; column < columns; column++){
+            mColumns[column] = new Column();
+            mValues.add(new ArrayList<>());
+            mCodes.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Assume each token is separated by tab
+     * @param dataPath the path to the data file
+     * @return the dataset holding every row of the file
+     * @throws IOException if the file cannot be read, or a row does not have as many columns as the first
+     */
+    public static EncodedDataset read(String dataPath) throws IOException {
+        EncodedDataset dataset = new EncodedDataset();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(dataPath)))){
+            List<String> row = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null){
+                row.clear();
+                StringTokenizer tokenizer = new StringTokenizer(line, "\t");
+                while (tokenizer.hasMoreElements()){
+                    row.add(tokenizer.nextToken());
+                }
+                if (row.isEmpty()){
+                    continue;
+                }
+                try {
+                    dataset.add(row);
+                } catch (IllegalArgumentException e){
+                    throw new IOException(dataPath + ", line " + (dataset.size() + 1) + ": " + e.getMessage());
+                }
+            }
+        }
+        dataset.trim();
+        return dataset;
+    }
+
+    /**
+     * @param rows the rows, each holding the class label followed by the features
+     * @return the dataset holding every row
+     */
+    public static EncodedDataset of(List<String[]> rows){
+        EncodedDataset dataset = new EncodedDataset();
+        for (String[] row : rows){
+            dataset.add(Arrays.asList(row));
+        }
+        dataset.trim();
+        return dataset;
+    }
+
+    /**
+     * Append a row, adding its new values to the dictionaries
+     * @param row the class label followed by the features
+     * @throws IllegalArgumentException if the row does not have as many columns as the first row
+     */
+    public void add(List<String> row){
+        if (mSize == 0 && mColumns.length == 0){
+            EncodedDataset first = new EncodedDataset(row.size());
+            mColumns = first.mColumns;
+            mValues = first.mValues;
+            mCodes = first.mCodes;
+        }
+        if (row.size() != mColumns.length){
+            throw new IllegalArgumentException("Expected " + mColumns.length + " columns, found " + row.size());
+        }
+        for (int column = 0; column < mColumns.length; column++){
+            mColumns[column].add(mSize, define(column, row.get(column)));
+        }
+        mSize++;
+    }
+
+    /**
+     * Add a value to the dictionary of its column, without adding a row
+     * @return the code of the value, the next code of the column if the value is new
+     */
+    public int define(int column, String value){
+        Map<String, Integer> codes = mCodes.get(column);
+        Integer code = codes.get(value);
+        if (code == null){
+            code = codes.size();
+            codes.put(value, code);
+            mValues.get(column).add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Release the spare capacity once all rows are added
+     */
+    public void trim(){
+        for (Column column : mColumns){
+            column.trim(mSize);
+        }
+    }
+
+    public int size(){
+        return mSize;
+    }
+
+    /**
+     * @return the number of columns, the class label included
+     */
+    public int columns(){
+        return mColumns.length;
+    }
+
+    /**
+     * @param row the index of the row
+     * @param column the index of the column, 0 for the class label
+     * @return the code of the value
+     */
+    public int code(int row, int column){
+        return mColumns[column].get(row);
+    }
+
+    /**
+     * @return the number of distinct values of the column
+     */
+    public int cardinality(int column){
+        return mValues.get(column).size();
+    }
+
+    /**
+     * @return the value of a code in the dictionary of the column
+     */
+    public String value(int column, int code){
+        return mValues.get(column).get(code);
+    }
+
+    /**
+     * @return the code of a value in the dictionary of the column, -1 if the value never occurred in it
+     */
+    public int codeOf(int column, String value){
+        Integer code = column < mCodes.size() ? mCodes.get(column).get(value) : null;
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @return a dataset with the dictionaries of this one and no row, for models that only need to encode rows
+     */
+    public EncodedDataset dictionaries(){
+        EncodedDataset res = new EncodedDataset();
+        res.mColumns = new Column[mColumns.length];
+        for (int column = 0; column < mColumns.length; column++){
+            res.mColumns[column] = new Column();
+            res.mValues.add(new ArrayList<>(mValues.get(column)));
+            res.mCodes.add(new HashMap<>(mCodes.get(column)));
+        }
+        res.trim();
+        return res;
+    }
+
+    /**
+     * Encode a row with the dictionaries of this dataset, without adding to them
+     * @param row the row, in the layout of the dataset
+     * @param codes receives the code of each column, -1 for a value never seen in its column or a missing column
+     */
+    public void encode(List<String> row, int[] codes){
+        for (int column = 0; column < codes.length; column++){
+            codes[column] = column < row.size() ? codeOf(column, row.get(column)) : -1;
+        }
+    }
+
+    /**
+     * The codes of a column, widened as its dictionary grows
+     */
+    private static class Column {
+        private byte[] mBytes = new byte[1024];
+        private short[] mShorts;
+        private int[] mInts;
+
+        /* The largest code stored */
+        private int mMax;
+
+        int get(int row){
+            if (mBytes != null){
+                return mBytes[row] & 0xFF;
+            }
+            return mShorts != null ? mShorts[row] & 0xFFFF : mInts[row];
+        }
+
+        void add(int row, int code){
+            if (code > mMax){
+                mMax = code;
+                widen(row);
+            }
+            if (mBytes != null){
+                if (row == mBytes.length){
+                    mBytes = Arrays.copyOf(mBytes, Math.max(16, row * 2));
+                }
+                mBytes[row] = (byte) code;
+            } else if (mShorts != null){
+                if (row == mShorts.length){
+                    mShorts = Arrays.copyOf(mShorts, Math.max(16, row * 2));
+                }
+                mShorts[row] = (short) code;
+            } else{
+                if (row == mInts.length){
+                    mInts = Arrays.copyOf(mInts, Math.max(16, row * 2));
+                }
+                mInts[row] = code;
+            }
+        }
+
+        /**
+         * Move the codes of the rows before {@code rows} to a wider array once the largest code no longer fits
+         */
+        private void widen(int rows){
+            if (mBytes != null && mMax > 0xFF){
+                mShorts = new short[Math.max(1024, mBytes.length)];
+                for (int i = 0; i < rows; i++){
+                    mShorts[i] = (short) (mBytes[i] & 0xFF);
+                }
+                mBytes = null;
+            }
+            if (mShorts != null && mMax > 0xFFFF){
+                mInts = new int[mShorts.length];
+                for (int i = 0; i < rows; i++){
+                    mInts[i] = mShorts[i] & 0xFFFF;
+                }
+                mShorts = null;
+            }
+        }
+
+        void trim(int rows){
+            if (mBytes != null){
+                mBytes = Arrays.copyOf(mBytes, rows);
+            } else if (mShorts != null){
+                mShorts = Arrays.copyOf(mShorts, rows);
+            } else{
+                mInts = Arrays.copyOf(mInts, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package datamining.classifier;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary snapshot of a trained classifier
+ * Every number is a big endian int, so the file is read from a memory mapping with bulk copies of int arrays:
+ *     header: magic "DMCL", version, kind of model
+ *     dictionaries: number of columns, then for each column its number of values, then for each value its
+ *                   number of UTF-8 bytes and the bytes, padded to a multiple of 4
+ *     the model itself, see Bayes.save and C45Classifier.save
+ */
+class ModelFile {
+
+    static final int MAGIC = 0x444D434C;
+    static final int VERSION = 1;
+
+    /* The kinds of model */
+    static final int BAYES = 1;
+    static final int C45 = 2;
+
+    private ModelFile(){
+    }
+
+    /**
+     * @return whether the file starts with the magic number of a model snapshot, rather than being a data file
+     */
+    static boolean isModel(String path){
+        try (DataInputStream in = new DataInputStream(new FileInputStream(path))){
+            return in.readInt() == MAGIC;
+        } catch (IOException e){
+            return false;
+        }
+    }
+
+    /**
+     * Open a snapshot for writing and write its header
+     */
+    static DataOutputStream create(String path, int kind) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(kind);
+        return out;
+    }
+
+    /**
+     * Map a snapshot and check its header
+     * @return the mapped file, positioned after the header
+     * @throws IOException if the file cannot be read, or is not a snapshot of this version and kind
+     */
+    static ByteBuffer open(String path, int kind) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC){
+            throw new IOException(path + " is not a model snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION){
+            throw new IOException(path + ": unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        int found = buffer.getInt();
+        if (found != kind){
+            throw new IOException(path + ": the snapshot holds a model of kind " + found + ", expected " + kind);
+        }
+        return buffer;
+    }
+
+    static void writeDictionaries(DataOutputStream out, EncodedDataset dictionaries) throws IOException {
+        out.writeInt(dictionaries.columns());
+        for (int column = 0; column < dictionaries.columns(); column++){
+            out.writeInt(dictionaries.cardinality(column));
+            for (int code = 0; code < dictionaries.cardinality(column); code++){
+                byte[] bytes = dictionaries.value(column, code).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.write(new byte[-bytes.length & 3]);
+            }
+        }
+    }
+
+    /**
+     * @return the dictionaries, every value having the code it was written with
+     * @throws IOException if the snapshot ends within them
+     */
+    static EncodedDataset readDictionaries(ByteBuffer in) throws IOException {
+        try {
+            EncodedDataset res = new EncodedDataset(in.getInt());
+            for (int column = 0; column < res.columns(); column++){
+                int values = in.getInt();
+                byte[] bytes = new byte[64];
+                for (int code = 0; code < values; code++){
+                    int length = in.getInt();
+                    if (length > bytes.length){
+                        bytes = new byte[Math.max(length, bytes.length * 2)];
+                    }
+                    in.get(bytes, 0, length);
+                    in.position(in.position() + (-length & 3));
+                    res.define(column, new String(bytes, 0, length, StandardCharsets.UTF_8));
+                }
+            }
+            return res;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e){
+            throw new IOException("The model snapshot is truncated or corrupt");
+        }
+    }
+
+    static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++){
+            out.writeInt(i < values.length ? values[i] : 0);
+        }
+    }
+
+    /**
+     * Copy the next ints of the snapshot in bulk
+     * @throws IOException if the snapshot ends before them
+     */
+    static int[] readInts(ByteBuffer in, int length) throws IOException {
+        if (length < 0 || in.remaining() / 4 < length){
+            throw new IOException("The model snapshot is truncated or corrupt");
+        }
+        int[] res = new int[length];
+        in.asIntBuffer().get(res);
+        in.position(in.position() + length * 4);
+        return res;
+    }
+}
@@ -1,3 +1,5 @@
+package datamining.cluster;
+
 import java.io.*;
 import java.util.*;
 
@@ -15,7 +17,32 @@ public class kmeans {
      */
     public kmeans(int k, String dataPath){
         mDataBase = importData(dataPath);
+        cluster(k);
+    }
+
+    /**
+     * A constructor for the class over points already in memory, normalized like the data read from file
+     * @param k Number of clusters
+     * @param points the points, each a row of coordinates; they are copied
+     */
+    public kmeans(int k, double[][] points){
+        mDataBase = new ArrayList<>();
+        for (double[] point : points){
+            List<Double> line = new ArrayList<>(point.length);
+            for (double coordinate : point){
+                line.add(coordinate);
+            }
+            mDataBase.add(line);
+        }
+        normalize(mDataBase);
+        cluster(k);
+    }
 
+    /**
+     * Run kmeans clustering until no center moves
+     * @param k Number of clusters
+     */
+    private void cluster(int k){
         // Main Algorithm for KMeans
         clusters = generateInitialPartitions(k);
 
@@ -176,7 +203,15 @@ public class kmeans {
             e.printStackTrace();
         }
 
-        // Normalize tha data
+        normalize(res);
+        return res;
+    }
+
+    /**
+     * Normalize tha data, scaling each coordinate to [0, 1]
+     * @param res the points to be normalized in place
+     */
+    private static void normalize(List<List<Double>> res){
         assert res.size() > 1;
 
         double[] min = new double[res.get(0).size()];
@@ -199,10 +234,36 @@ public class kmeans {
                 list.set(i, (list.get(i) - min[i]) / (max[i] - min[i]));
             }
         }
+    }
 
+    /**
+     * @return the index of the cluster of each point, in the order of the data
+     */
+    public int[] getAssignments(){
+        Map<List<Double>, Integer> clusterOf = new IdentityHashMap<>();
+        for (int i = 0; i < clusters.size(); i++){
+            for (List<Double> point : clusters.get(i).points){
+                clusterOf.put(point, i);
+            }
+        }
+        int[] res = new int[mDataBase.size()];
+        for (int i = 0; i < res.length; i++){
+            res[i] = clusterOf.get(mDataBase.get(i));
+        }
         return res;
     }
 
+    /**
+     * @return the sum of the squared distances of the points to the center of their cluster
+     */
+    public double getSSE(){
+        double sum = 0;
+        for (Partition p: clusters){
+            sum += p.SSD;
+        }
+        return sum;
+    }
+
     /**
      * Write the output into the path specified and report the SSE
      * @param outputPath the path to the output file
@@ -224,12 +285,8 @@ public class kmeans {
 
         }
 
-        double sum = 0;
-        for (Partition p: clusters){
-            sum += p.SSD;
-        }
         System.out.print("SSE: ");
-        System.out.println(sum);
+        System.out.println(getSSE());
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,57 @@
+package benchmark;
+
+import datamining.apriori.Apriori;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Apriori.generateFIS on the data sets of Apriori/test, at the thresholds used in its README
+ * generateFIS prunes the database in place, so every invocation mines a fresh copy of the transactions;
+ * copying them is not measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AprioriBenchmark {
+
+    @Param({"T10I4D100K", "mushroom", "chess"})
+    public String dataset;
+
+    @Param({"1"})
+    public int threads;
+
+    private int[][] mTransactions;
+    private int mSupport;
+
+    private Apriori mApriori;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mTransactions = Workloads.readTransactions(Workloads.dataFile("Apriori", "test/" + dataset + ".dat"));
+        switch (dataset){
+            case "T10I4D100K":
+                mSupport = 500;
+                break;
+            case "mushroom":
+                mSupport = 2000;
+                break;
+            default:
+                mSupport = 2500;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void load(){
+        mApriori = new Apriori(mTransactions, mSupport);
+        mApriori.setThreads(threads);
+    }
+
+    @Benchmark
+    public void generateFIS(){
+        mApriori.generateFIS();
+    }
+}
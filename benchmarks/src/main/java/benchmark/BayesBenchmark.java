@@ -0,0 +1,85 @@
+package benchmark;
+
+import datamining.classifier.Bayes;
+import datamining.classifier.CompiledBayes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training the naive Bayes classifier on mushroom.training and predicting every row of mushroom.test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BayesBenchmark {
+
+    private List<String[]> mTraining;
+    private List<String[]> mTest;
+
+    /* The classifier trained once for the predictions */
+    private Bayes mBayes;
+
+    /* The compiled model and the test rows it encoded */
+    private CompiledBayes mModel;
+    private int[][] mCodes;
+
+    /* The snapshot of the trained model */
+    private String mModelPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mTraining = Workloads.readRows(Workloads.dataFile("Classifier", "test/mushroom.training"));
+        mTest = Workloads.readRows(Workloads.dataFile("Classifier", "test/mushroom.test"));
+        mBayes = new Bayes(mTraining);
+        File model = File.createTempFile("bayes", ".model");
+        model.deleteOnExit();
+        mModelPath = model.getPath();
+        mBayes.save(mModelPath);
+        mModel = mBayes.compile();
+        mCodes = new int[mTest.size()][mModel.columns()];
+        for (int i = 0; i < mCodes.length; i++){
+            mModel.encode(Arrays.asList(mTest.get(i)), mCodes[i]);
+        }
+    }
+
+    @Benchmark
+    public Bayes train(){
+        return new Bayes(mTraining);
+    }
+
+    /**
+     * Predict the whole test file, about 700 rows
+     */
+    @Benchmark
+    public void predict(Blackhole blackhole){
+        for (String[] row : mTest){
+            blackhole.consume(mBayes.predict(row));
+        }
+    }
+
+    /**
+     * Predict the whole test file encoded beforehand, scoring only
+     */
+    @Benchmark
+    public void predictEncoded(Blackhole blackhole){
+        for (int[] codes : mCodes){
+            blackhole.consume(mModel.predict(codes));
+        }
+    }
+
+    /**
+     * Load the snapshot of the trained model, ready to predict
+     */
+    @Benchmark
+    public Bayes load() throws Exception {
+        return Bayes.load(mModelPath);
+    }
+}
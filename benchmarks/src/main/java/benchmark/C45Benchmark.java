@@ -0,0 +1,64 @@
+package benchmark;
+
+import datamining.classifier.C45Classifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the C4.5 decision tree from mushroom.training and predicting every row of mushroom.test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class C45Benchmark {
+
+    private List<String[]> mTraining;
+    private List<String[]> mTest;
+
+    /* The tree built once for the predictions */
+    private C45Classifier mTree;
+
+    /* The snapshot of the trained model */
+    private String mModelPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mTraining = Workloads.readRows(Workloads.dataFile("Classifier", "test/mushroom.training"));
+        mTest = Workloads.readRows(Workloads.dataFile("Classifier", "test/mushroom.test"));
+        mTree = new C45Classifier(mTraining);
+        File model = File.createTempFile("c45classifier", ".model");
+        model.deleteOnExit();
+        mModelPath = model.getPath();
+        mTree.save(mModelPath);
+    }
+
+    @Benchmark
+    public C45Classifier build(){
+        return new C45Classifier(mTraining);
+    }
+
+    /**
+     * Predict the whole test file, about 700 rows
+     */
+    @Benchmark
+    public void predict(Blackhole blackhole){
+        for (String[] row : mTest){
+            blackhole.consume(mTree.predict(row));
+        }
+    }
+
+    /**
+     * Load the snapshot of the trained model, ready to predict
+     */
+    @Benchmark
+    public C45Classifier load() throws Exception {
+        return C45Classifier.load(mModelPath);
+    }
+}
@@ -0,0 +1,41 @@
+package benchmark;
+
+import datamining.cluster.kmeans;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k-means to convergence on iris and wine and on variants scaled up by copying every point with some noise;
+ * the initial centroids are random, so the number of rounds varies between invocations
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KMeansBenchmark {
+
+    @Param({"iris", "wine"})
+    public String dataset;
+
+    /* Number of copies of each point, 1 for the original data set */
+    @Param({"1", "20"})
+    public int scale;
+
+    @Param({"3"})
+    public int k;
+
+    private double[][] mPoints;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mPoints = Workloads.readPoints(Workloads.dataFile("Cluster", "data/" + dataset + ".data"), scale, 42);
+    }
+
+    @Benchmark
+    public kmeans converge(){
+        return new kmeans(k, mPoints);
+    }
+}
@@ -0,0 +1,118 @@
+package benchmark;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The data sets shared by the benchmarks, read once per trial so that only the algorithms are measured
+ */
+final class Workloads {
+
+    /* The root of the repository, the benchmarks being run from their own folder by default */
+    private static final String ROOT = System.getProperty("datamining.root", "..");
+
+    private Workloads(){
+    }
+
+    /**
+     * @param module the folder of the algorithm in the repository
+     * @param path the path to the data file inside that folder
+     * @return the data file
+     * @throws FileNotFoundException if the file is missing, e.g. when not run from the benchmarks folder
+     */
+    static File dataFile(String module, String path) throws FileNotFoundException {
+        File file = new File(new File(ROOT, module), path);
+        if (!file.isFile()){
+            throw new FileNotFoundException(file + " not found, run from the benchmarks folder "
+                    + "or set -Ddatamining.root to the root of the repository");
+        }
+        return file;
+    }
+
+    /**
+     * Read the transactions of a .dat file, one line of space separated items per transaction
+     */
+    static int[][] readTransactions(File file) throws IOException {
+        List<int[]> transactions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+            String line;
+            while ((line = reader.readLine()) != null){
+                StringTokenizer tokenizer = new StringTokenizer(line, " ");
+                int[] transaction = new int[tokenizer.countTokens()];
+                for (int i = 0; i < transaction.length; i++){
+                    transaction[i] = Integer.parseInt(tokenizer.nextToken());
+                }
+                transactions.add(transaction);
+            }
+        }
+        return transactions.toArray(new int[0][]);
+    }
+
+    /**
+     * Read a tab separated file, one array of tokens per line, in the form the classifiers train and predict from
+     */
+    static List<String[]> readRows(File file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+            String line;
+            while ((line = reader.readLine()) != null){
+                StringTokenizer tokenizer = new StringTokenizer(line, "\t");
+                List<String> row = new ArrayList<>();
+                while (tokenizer.hasMoreElements()){
+                    row.add(tokenizer.nextToken());
+                }
+                if (!row.isEmpty()){
+                    rows.add(row.toArray(new String[0]));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Read the points of a comma separated file, the tokens that are not numbers being labels left out,
+     * and scale the data set up by copying every point {@code scale} times with every coordinate moved
+     * by up to 5% of its value, so that the copies do not collapse onto the original points
+     * @param file the data file
+     * @param scale the number of copies of each point, 1 for the original data set
+     * @param seed the seed of the noise, so every trial measures the same data
+     * @return the points
+     * @throws IOException if the file cannot be read
+     */
+    static double[][] readPoints(File file, int scale, long seed) throws IOException {
+        List<double[]> points = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+            String line;
+            while ((line = reader.readLine()) != null){
+                List<Double> point = new ArrayList<>();
+                for (String token : line.split(",")){
+                    try {
+                        point.add(Double.parseDouble(token));
+                    } catch (NumberFormatException ignored){
+                        // Labels are left out
+                    }
+                }
+                if (!point.isEmpty()){
+                    double[] coordinates = new double[point.size()];
+                    for (int i = 0; i < coordinates.length; i++){
+                        coordinates[i] = point.get(i);
+                    }
+                    points.add(coordinates);
+                }
+            }
+        }
+
+        Random random = new Random(seed);
+        double[][] res = new double[points.size() * Math.max(1, scale)][];
+        for (int copy = 0, next = 0; copy < Math.max(1, scale); copy++){
+            for (double[] point : points){
+                double[] coordinates = point.clone();
+                for (int i = 0; copy > 0 && i < coordinates.length; i++){
+                    coordinates[i] *= 1 + 0.05 * Math.max(-1, Math.min(1, random.nextGaussian() / 2));
+                }
+                res[next++] = coordinates;
+            }
+        }
+        return res;
+    }
+}